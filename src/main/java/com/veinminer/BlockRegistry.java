@@ -0,0 +1,260 @@
+package com.veinminer;
+
+import cn.nukkit.tags.BlockTags;
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vein-mineable blocks compiled from the declarative definitions in blocks.yml
+ * Each category declares a required tool, a connectivity, a Fortune formula, members (the names used by the "blocks"
+ * switches in config.yml), server block tags, groups of ids that count as one type and the members watched as rare ores.
+ * Compiled once per (re)load into an immutable id-to-type map, so the hot path is a single lookup.
+ */
+public final class BlockRegistry {
+
+    // Type ids are interned for the lifetime of the server and never reused, so arrays indexed
+    // by type id stay valid across reloads
+    private static final Map<String, Integer> TYPE_IDS = new HashMap<>();
+    private static final List<String> TYPE_NAMES = new ArrayList<>();
+
+    private final Map<String, BlockType> blocks;
+    private final int typeCount;
+    private final long compileNanos;
+
+    private BlockRegistry(Map<String, BlockType> blocks, int typeCount, long compileNanos) {
+        this.blocks = blocks;
+        this.typeCount = typeCount;
+        this.compileNanos = compileNanos;
+    }
+
+    /**
+     * Compile the block definitions
+     * Safe to call off the main thread
+     * @param definitions Parsed blocks.yml
+     * @param config Parsed config.yml (category and per-block switches)
+     * @param problems Receives validation problems
+     * @return Compiled registry
+     */
+    public static BlockRegistry compile(Config definitions, Config config, List<String> problems) {
+        long start = System.nanoTime();
+
+        // Per-block switches from config.yml, matched case-insensitively
+        Map<String, Boolean> switches = new HashMap<>();
+        if (config.isSection("blocks")) {
+            for (Map.Entry<String, Object> entry : config.getSection("blocks").getAllMap().entrySet()) {
+                if (entry.getValue() instanceof Boolean) {
+                    switches.put(entry.getKey().toUpperCase(), (Boolean) entry.getValue());
+                }
+            }
+        }
+
+        Map<String, BlockType> blocks = new HashMap<>();
+        Map<String, BlockType> types = new HashMap<>();
+
+        ConfigSection categories = definitions.isSection("categories") ? definitions.getSection("categories") : null;
+        if (categories == null) {
+            problems.add("blocks.yml has no categories, no blocks can be vein mined");
+            return new BlockRegistry(Collections.emptyMap(), 0, System.nanoTime() - start);
+        }
+
+        for (String category : categories.getKeys(false)) {
+            if (!categories.isSection(category) || !config.getBoolean("enabled-blocks." + category, true)) {
+                continue;
+            }
+            ConfigSection section = categories.getSection(category);
+
+            ToolClass tool = ToolClass.fromConfig(section.getString("tool", "any"));
+            if (tool == null) {
+                problems.add("Unknown tool '" + section.getString("tool", "") + "' for block category " + category + ", using any");
+                tool = ToolClass.ANY;
+            }
+            Connectivity connectivity = Connectivity.fromConfig(section.getString("connectivity", "cube"));
+            if (connectivity == null) {
+                problems.add("Unknown connectivity '" + section.getString("connectivity", "") + "' for block category " + category + ", using cube");
+                connectivity = Connectivity.CUBE;
+            }
+
+            BlockType.Fortune fortune = parseFortune(section.getString("fortune", "none"), category, problems);
+            ConfigSection fortuneOverrides = section.isSection("fortune-overrides") ? section.getSection("fortune-overrides") : null;
+
+            // Categories listing rare members are watched by the x-ray alerts
+            Set<String> rareMembers = new HashSet<>();
+            List<String> rare = section.getStringList("rare");
+            if (rare != null) {
+                for (String member : rare) {
+                    rareMembers.add(member.toUpperCase());
+                }
+            }
+            BlockType.Rarity baseRarity = rareMembers.isEmpty() ? BlockType.Rarity.NONE : BlockType.Rarity.COMMON;
+
+            // Members enabled by their switch, then everything in the listed server tags
+            Set<String> ids = new LinkedHashSet<>();
+            Map<String, BlockType.Fortune> idFortune = new HashMap<>();
+            Set<String> rareIds = new HashSet<>();
+            if (section.isSection("members")) {
+                ConfigSection members = section.getSection("members");
+                for (String member : members.getKeys(false)) {
+                    if (switches.getOrDefault(member.toUpperCase(), true)) {
+                        List<String> memberIds = members.getStringList(member);
+                        BlockType.Fortune memberFortune = fortuneOverrides != null && fortuneOverrides.exists(member)
+                            ? parseFortune(fortuneOverrides.getString(member, "none"), category, problems)
+                            : fortune;
+                        if (memberIds != null) {
+                            for (String id : memberIds) {
+                                ids.add(normalize(id));
+                                idFortune.put(normalize(id), memberFortune);
+                                if (rareMembers.contains(member.toUpperCase())) {
+                                    rareIds.add(normalize(id));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            List<String> tags = section.getStringList("tags");
+            if (tags != null) {
+                for (String tag : tags) {
+                    Set<String> tagged = BlockTags.getBlockSet(tag);
+                    if (tagged == null || tagged.isEmpty()) {
+                        problems.add("Block tag '" + tag + "' in category " + category + " is unknown or empty");
+                        continue;
+                    }
+                    ids.addAll(tagged);
+                }
+            }
+
+            // Grouped ids share the type named after the first id of the group
+            Map<String, String> groupNames = new HashMap<>();
+            List<?> groups = section.getList("groups");
+            if (groups != null) {
+                for (Object group : groups) {
+                    if (!(group instanceof List) || ((List<?>) group).isEmpty()) {
+                        continue;
+                    }
+                    String groupName = normalize(String.valueOf(((List<?>) group).get(0)));
+                    for (Object id : (List<?>) group) {
+                        groupNames.put(normalize(String.valueOf(id)), groupName);
+                    }
+                }
+            }
+
+            for (String id : ids) {
+                if (blocks.containsKey(id)) {
+                    problems.add("Block " + id + " is defined in more than one category, keeping " + blocks.get(id).getCategory());
+                    continue;
+                }
+                String typeName = groupNames.getOrDefault(id, id);
+                final ToolClass typeTool = tool;
+                final Connectivity typeConnectivity = connectivity;
+                final BlockType.Fortune typeFortune = idFortune.getOrDefault(id, fortune);
+                final BlockType.Rarity typeRarity = rareIds.contains(id) ? BlockType.Rarity.RARE : baseRarity;
+                BlockType type = types.computeIfAbsent(typeName,
+                    name -> new BlockType(intern(name), name, category, typeTool, typeConnectivity, typeFortune, typeRarity));
+                blocks.put(id, type);
+            }
+        }
+
+        return new BlockRegistry(Collections.unmodifiableMap(blocks), types.size(), System.nanoTime() - start);
+    }
+
+    private static BlockType.Fortune parseFortune(String value, String category, List<String> problems) {
+        BlockType.Fortune fortune = BlockType.Fortune.fromConfig(value);
+        if (fortune == null) {
+            problems.add("Unknown fortune formula '" + value + "' in block category " + category + ", using none");
+            return BlockType.Fortune.NONE;
+        }
+        return fortune;
+    }
+
+    /**
+     * Add the default namespace to bare ids
+     */
+    private static String normalize(String id) {
+        String trimmed = id.trim().toLowerCase();
+        return trimmed.indexOf(':') < 0 ? "minecraft:" + trimmed : trimmed;
+    }
+
+    /**
+     * Reserve the id of a type name, also used for stored statistics of types no longer configured
+     * @param name A type name
+     * @return The interned type id
+     */
+    static synchronized int intern(String name) {
+        Integer id = TYPE_IDS.get(name);
+        if (id == null) {
+            id = TYPE_NAMES.size();
+            TYPE_IDS.put(name, id);
+            TYPE_NAMES.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * @param typeId A type id handed out by any registry
+     * @return The type name, or null for an unknown id
+     */
+    public static synchronized String nameOf(int typeId) {
+        return typeId >= 0 && typeId < TYPE_NAMES.size() ? TYPE_NAMES.get(typeId) : null;
+    }
+
+    /**
+     * @param name A type name
+     * @return The interned type id, or -1 if the name was never registered
+     */
+    public static synchronized int idOf(String name) {
+        Integer id = TYPE_IDS.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return Number of type ids handed out so far (upper bound for arrays indexed by type id)
+     */
+    public static synchronized int typeIdCount() {
+        return TYPE_NAMES.size();
+    }
+
+    /**
+     * @param blockId Block identifier
+     * @return The block's type, or null if the block is not vein-mineable
+     */
+    public BlockType get(String blockId) {
+        return blockId == null ? null : blocks.get(blockId);
+    }
+
+    /**
+     * @return Every vein-mineable block id (read-only)
+     */
+    Set<String> getBlockIds() {
+        return Collections.unmodifiableSet(blocks.keySet());
+    }
+
+    /**
+     * @return Number of vein-mineable block ids
+     */
+    public int size() {
+        return blocks.size();
+    }
+
+    /**
+     * @return Number of distinct types (grouped ids count once)
+     */
+    public int getTypeCount() {
+        return typeCount;
+    }
+
+    /**
+     * @return Time spent compiling the definitions
+     */
+    public long getCompileNanos() {
+        return compileNanos;
+    }
+}
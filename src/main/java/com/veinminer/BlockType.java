@@ -0,0 +1,100 @@
+package com.veinminer;
+
+/**
+ * A vein-mineable block type compiled from the block definitions
+ * Every block id of a group maps to the same instance, so the search compares types by reference
+ */
+public final class BlockType {
+
+    /**
+     * Vanilla Fortune formula applied to the type's drops by VeinMiner
+     */
+    public enum Fortune {
+        /** Fortune is left to the server's own drop logic */
+        NONE,
+        /** Count multiplied by a random 1..level+1 (most ores) */
+        ORE_DROPS,
+        /** Random 0..level added to the count (redstone) */
+        UNIFORM_BONUS;
+
+        /**
+         * Parse a formula from config
+         * @param name Config value
+         * @return Parsed formula, or null for unknown values
+         */
+        public static Fortune fromConfig(String name) {
+            if (name == null) {
+                return null;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * How a type counts towards the x-ray alerts ({@link XrayDetector})
+     */
+    public enum Rarity {
+        /** Not watched, the category lists no rare members */
+        NONE,
+        /** Watched, counts towards the total only */
+        COMMON,
+        /** Watched, counts towards the rare blocks */
+        RARE
+    }
+
+    private final int id;
+    private final String name;
+    private final String category;
+    private final ToolClass tool;
+    private final Connectivity connectivity;
+    private final Fortune fortune;
+    private final Rarity rarity;
+
+    BlockType(int id, String name, String category, ToolClass tool, Connectivity connectivity, Fortune fortune, Rarity rarity) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.tool = tool;
+        this.connectivity = connectivity;
+        this.fortune = fortune;
+        this.rarity = rarity;
+    }
+
+    /**
+     * @return Numeric type id, stable for the lifetime of the server (see {@link BlockRegistry#nameOf(int)})
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Type name (the first block id of its group)
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public ToolClass getTool() {
+        return tool;
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    public Fortune getFortune() {
+        return fortune;
+    }
+
+    public Rarity getRarity() {
+        return rarity;
+    }
+}
@@ -0,0 +1,60 @@
+package com.veinminer;
+
+import java.util.Arrays;
+
+/**
+ * Which neighbours of a block continue a vein
+ */
+public enum Connectivity {
+    /** The 6 blocks sharing a face */
+    FACES(1),
+    /** Faces and the 12 blocks sharing an edge (18) */
+    EDGES(2),
+    /** Every block of the surrounding 3x3x3 cube (26) */
+    CUBE(3);
+
+    // Neighbour offsets as flat (dx, dy, dz) triples
+    private final int[] offsets;
+
+    Connectivity(int maxAxes) {
+        int[] result = new int[26 * 3];
+        int count = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    int axes = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+                    if (axes == 0 || axes > maxAxes) {
+                        continue;
+                    }
+                    result[count++] = dx;
+                    result[count++] = dy;
+                    result[count++] = dz;
+                }
+            }
+        }
+        this.offsets = Arrays.copyOf(result, count);
+    }
+
+    /**
+     * @return Neighbour offsets as flat (dx, dy, dz) triples, must not be modified
+     */
+    int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Parse a connectivity from config
+     * @param name Config value
+     * @return Parsed connectivity, or null for unknown values
+     */
+    public static Connectivity fromConfig(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.veinminer;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.item.Item;
+import cn.nukkit.item.enchantment.Enchantment;
+import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.nbt.tag.ListTag;
+
+import java.util.SplittableRandom;
+
+/**
+ * Drops and experience of one vein, resolved once for its block type and tool
+ * The server's drop logic is sampled a bounded number of times on the broken block, and every mined block
+ * draws one of the samples with the vein's random source. For veins up to the sample count this equals
+ * asking every block; larger veins keep the drop distribution while the drop logic runs a fixed number of times.
+ * Fortune is applied here with the vanilla formulas (the server sees the tool without Fortune), so Fortune and
+ * the choice among samples follow the vein's seed. The samples themselves use the server's unseeded random source.
+ */
+public final class DropTable {
+
+    private static final int MAX_SAMPLES = 16;
+
+    private final Item[][] dropSamples;
+    private final int[] xpSamples;
+    private final BlockType.Fortune fortune;
+    private final int fortuneLevel;
+    private final SplittableRandom random;
+
+    private DropTable(Item[][] dropSamples, int[] xpSamples, BlockType.Fortune fortune, int fortuneLevel, SplittableRandom random) {
+        this.dropSamples = dropSamples;
+        this.xpSamples = xpSamples;
+        this.fortune = fortune;
+        this.fortuneLevel = fortuneLevel;
+        this.random = random;
+    }
+
+    /**
+     * Resolve the drop table of a vein
+     * @param prototype A block of the vein (the broken block)
+     * @param type The vein's type
+     * @param tool The tool in hand
+     * @param outcome The precomputed tool outcome (enchantment levels)
+     * @param blocks Number of blocks that will be mined
+     * @param random The vein's random source
+     * @return Drop table for the vein
+     */
+    public static DropTable build(Block prototype, BlockType type, Item tool, ToolOutcome outcome, int blocks, SplittableRandom random) {
+        boolean silkTouch = outcome.hasSilkTouch();
+        boolean ownFortune = !silkTouch && outcome.getFortuneLevel() > 0 && type.getFortune() != BlockType.Fortune.NONE;
+
+        // The same tool without Fortune keeps harvest checks, other enchantments and custom data,
+        // but stops the server from applying Fortune again
+        Item dropTool = ownFortune ? withoutFortune(tool) : tool;
+
+        int samples = Math.max(1, Math.min(blocks, MAX_SAMPLES));
+        Item[][] dropSamples = new Item[samples][];
+        int[] xpSamples = new int[samples];
+        for (int s = 0; s < samples; s++) {
+            Item[] drops = prototype.getDrops(dropTool);
+            dropSamples[s] = drops == null ? new Item[0] : drops;
+            // Silk-touched ores drop no experience, like in vanilla
+            xpSamples[s] = silkTouch && type.getFortune() != BlockType.Fortune.NONE ? 0 : prototype.getDropExp();
+        }
+
+        return new DropTable(dropSamples, xpSamples,
+            ownFortune ? type.getFortune() : BlockType.Fortune.NONE, outcome.getFortuneLevel(), random);
+    }
+
+    /**
+     * Copy a tool without its Fortune enchantment
+     * @param tool The tool in hand (not modified)
+     * @return Copy keeping every other enchantment and tag
+     */
+    private static Item withoutFortune(Item tool) {
+        Item copy = tool.clone();
+        CompoundTag tag = copy.getNamedTag();
+        if (tag == null || !tag.contains("ench")) {
+            return copy;
+        }
+        ListTag<CompoundTag> kept = new ListTag<>();
+        for (CompoundTag enchantment : tag.getList("ench", CompoundTag.class).getAll()) {
+            if (enchantment.getShort("id") != Enchantment.ID_FORTUNE_DIGGING) {
+                kept.add(enchantment);
+            }
+        }
+        tag = tag.copy();
+        tag.putList("ench", kept);
+        copy.setNamedTag(tag);
+        return copy;
+    }
+
+    /**
+     * Draw the drops of one block
+     * @return New item instances (safe to add to an inventory)
+     */
+    public Item[] rollDrops() {
+        Item[] sample = dropSamples[dropSamples.length == 1 ? 0 : random.nextInt(dropSamples.length)];
+        Item[] drops = new Item[sample.length];
+        for (int i = 0; i < sample.length; i++) {
+            Item drop = sample[i];
+            if (drop == null || drop.isNull()) {
+                continue;
+            }
+            drop = drop.clone();
+            int count = applyFortune(drop.getCount());
+            if (count != drop.getCount()) {
+                drop.setCount(count);
+            }
+            drops[i] = drop;
+        }
+        return drops;
+    }
+
+    /**
+     * Draw the experience of one block
+     * @return Experience points
+     */
+    public int rollXp() {
+        return xpSamples[xpSamples.length == 1 ? 0 : random.nextInt(xpSamples.length)];
+    }
+
+    private int applyFortune(int count) {
+        switch (fortune) {
+            case ORE_DROPS: {
+                int bonus = random.nextInt(fortuneLevel + 2) - 1;
+                return bonus > 0 ? count * (bonus + 1) : count;
+            }
+            case UNIFORM_BONUS:
+                return count + random.nextInt(fortuneLevel + 1);
+            default:
+                return count;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.Sound;
+import cn.nukkit.level.particle.DestroyBlockParticle;
+import cn.nukkit.math.Vector3;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Coalesces the particles and sounds of mined veins
+ * Each vein contributes a bounded selection of break particles (spread over the vein or only its outer blocks)
+ * and a single sound. Queued effects are sent once per tick to the players viewing the vein, within a global
+ * per-tick particle budget; whatever does not fit is dropped since late effects are worthless.
+ * Only used from the main thread.
+ */
+public class EffectsBatcher {
+
+    /**
+     * Which mined blocks get a break particle
+     */
+    public enum ParticleMode {
+        /** Evenly spaced over the whole vein */
+        SAMPLE,
+        /** Only blocks with a face that is not part of the vein */
+        PERIMETER;
+
+        public static ParticleMode fromConfig(String name) {
+            if (name == null) {
+                return null;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final int[] FACE_OFFSETS = {1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1};
+
+    private final VeinMinerPlugin plugin;
+    private final ArrayDeque<PendingEffects> pending;
+    private boolean flushScheduled;
+    private long droppedParticles;
+
+    public EffectsBatcher(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.pending = new ArrayDeque<>();
+    }
+
+    /**
+     * Queue the effects of a mined vein for the next flush
+     * @param player The player who mined the vein (sound position)
+     * @param level The vein's level
+     * @param prototype A block of the vein, captured before it was broken (particle texture)
+     * @param mined Positions that were actually broken
+     * @param sound Whether the vein sound should play
+     * @param settings Settings snapshot for this vein
+     */
+    public void queueVein(Player player, Level level, Block prototype, LongArrayList mined, boolean sound, VeinMinerSettings settings) {
+        // Effects are the first thing switched off under server load
+        if (!plugin.getLoadController().isEffectsEnabled()) {
+            return;
+        }
+        sound &= settings.isSoundsEnabled();
+        if (mined.isEmpty() || (!settings.isParticlesEnabled() && !sound)) {
+            return;
+        }
+
+        long[] particles = settings.isParticlesEnabled()
+            ? selectParticles(mined, settings.getParticleMode(), settings.getMaxParticlesPerVein())
+            : new long[0];
+        Vector3 soundAt = sound ? player.getPosition() : null;
+        pending.addLast(new PendingEffects(level, prototype, particles, soundAt, mined.getLong(0)));
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            plugin.getServer().getScheduler().scheduleTask(plugin, this::flush);
+        }
+    }
+
+    /**
+     * Send all queued effects, at most the per-tick particle budget
+     */
+    private void flush() {
+        flushScheduled = false;
+        int budget = plugin.getSettings().getMaxParticlesPerTick();
+
+        PendingEffects effects;
+        while ((effects = pending.pollFirst()) != null) {
+            // PERFORMANCE: Viewers are resolved once per vein instead of once per particle
+            long origin = effects.origin;
+            Map<Long, Player> chunkPlayers = effects.level.getChunkPlayers(PackedPos.x(origin) >> 4, PackedPos.z(origin) >> 4);
+            if (chunkPlayers == null || chunkPlayers.isEmpty()) {
+                droppedParticles += effects.particles.length;
+                continue;
+            }
+            Player[] viewers = chunkPlayers.values().toArray(new Player[0]);
+
+            int sent = Math.min(budget, effects.particles.length);
+            for (int i = 0; i < sent; i++) {
+                long pos = effects.particles[i];
+                effects.level.addParticle(new DestroyBlockParticle(
+                    new Vector3(PackedPos.x(pos) + 0.5, PackedPos.y(pos) + 0.5, PackedPos.z(pos) + 0.5), effects.prototype), viewers);
+            }
+            budget -= sent;
+            droppedParticles += effects.particles.length - sent;
+
+            if (effects.soundAt != null) {
+                effects.level.addSound(effects.soundAt, Sound.RANDOM_LEVELUP, 1.0f, 1.5f, viewers);
+            }
+        }
+    }
+
+    /**
+     * Pick the positions that get a break particle
+     * @param mined Mined positions
+     * @param mode Selection mode
+     * @param max Maximum particles for the vein
+     * @return Selected positions
+     */
+    static long[] selectParticles(LongArrayList mined, ParticleMode mode, int max) {
+        LongArrayList candidates = mined;
+        if (mode == ParticleMode.PERIMETER && mined.size() > max) {
+            LongOpenHashSet members = new LongOpenHashSet(mined);
+            candidates = new LongArrayList();
+            for (int i = 0; i < mined.size(); i++) {
+                long pos = mined.getLong(i);
+                if (isPerimeter(pos, members)) {
+                    candidates.add(pos);
+                }
+            }
+        }
+
+        // Large selections are sampled evenly so the particle count stays bounded
+        int step = Math.max(1, (candidates.size() + max - 1) / max);
+        long[] selected = new long[Math.min(max, (candidates.size() + step - 1) / step)];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = candidates.getLong(i * step);
+        }
+        return selected;
+    }
+
+    private static boolean isPerimeter(long pos, LongOpenHashSet members) {
+        int x = PackedPos.x(pos);
+        int y = PackedPos.y(pos);
+        int z = PackedPos.z(pos);
+        for (int i = 0; i < FACE_OFFSETS.length; i += 3) {
+            if (!members.contains(PackedPos.pack(x + FACE_OFFSETS[i], y + FACE_OFFSETS[i + 1], z + FACE_OFFSETS[i + 2]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Particles dropped because of the per-tick budget or missing viewers since startup
+     */
+    public long getDroppedParticles() {
+        return droppedParticles;
+    }
+
+    /**
+     * Effects of one vein waiting for the next flush
+     */
+    private static class PendingEffects {
+        private final Level level;
+        private final Block prototype;
+        private final long[] particles;
+        private final Vector3 soundAt;
+        private final long origin;
+
+        PendingEffects(Level level, Block prototype, long[] particles, Vector3 soundAt, long origin) {
+            this.level = level;
+            this.prototype = prototype;
+            this.particles = particles;
+            this.soundAt = soundAt;
+            this.origin = origin;
+        }
+    }
+}
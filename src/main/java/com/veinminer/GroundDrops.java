@@ -0,0 +1,86 @@
+package com.veinminer;
+
+import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
+import cn.nukkit.math.Vector3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Items of one vein that go to the ground, merged into as few full stacks as possible
+ * Spawning them together at one location leaves the server a handful of item entities to tick
+ * instead of one or more per mined block.
+ */
+final class GroundDrops {
+
+    /**
+     * Where the ground drops of a vein are spawned
+     */
+    enum Location {
+        /** At each mined block, unmerged (vanilla-like) */
+        BLOCK,
+        /** At the block the player broke */
+        ORIGIN,
+        /** At the player */
+        PLAYER;
+
+        static Location fromConfig(String name) {
+            if (name == null) {
+                return null;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final List<Item> stacks = new ArrayList<>();
+
+    /**
+     * Merge an item into the collected stacks
+     * @param item The item (not modified)
+     */
+    void add(Item item) {
+        int remaining = item.getCount();
+        int maxStack = item.getMaxStackSize();
+
+        for (int i = 0; i < stacks.size() && remaining > 0; i++) {
+            Item stack = stacks.get(i);
+            if (stack.getCount() >= maxStack || !stack.equals(item, true, true)) {
+                continue;
+            }
+            int moved = Math.min(remaining, maxStack - stack.getCount());
+            stack.setCount(stack.getCount() + moved);
+            remaining -= moved;
+        }
+
+        while (remaining > 0) {
+            Item stack = item.clone();
+            stack.setCount(Math.min(remaining, maxStack));
+            stacks.add(stack);
+            remaining -= stack.getCount();
+        }
+    }
+
+    boolean isEmpty() {
+        return stacks.isEmpty();
+    }
+
+    /**
+     * Spawn every collected stack
+     * @param level The level to spawn in
+     * @param at Spawn position
+     * @return Number of item entities spawned
+     */
+    int spawn(Level level, Vector3 at) {
+        for (Item stack : stacks) {
+            level.dropItem(at, stack);
+        }
+        int spawned = stacks.size();
+        stacks.clear();
+        return spawned;
+    }
+}
@@ -0,0 +1,98 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.inventory.PlayerInventory;
+import cn.nukkit.item.Item;
+
+import java.util.BitSet;
+
+/**
+ * Inventory writes of one vein, synchronised to the client once at the end
+ * Slots are changed without sending them and remembered as dirty; {@link #flush()} sends only the dirty slots,
+ * or the whole inventory in one packet when most of it changed.
+ * Only used from the main thread.
+ */
+final class InventoryBatch {
+
+    private final Player player;
+    private final PlayerInventory inventory;
+    private final int size;
+    private final BitSet dirty;
+
+    InventoryBatch(Player player) {
+        this.player = player;
+        this.inventory = player.getInventory();
+        this.size = inventory.getSize();
+        this.dirty = new BitSet(size);
+    }
+
+    /**
+     * Add an item, filling matching stacks first and then empty slots
+     * @param item The item to add (not modified)
+     * @return What did not fit, or null if everything was added
+     */
+    Item add(Item item) {
+        int remaining = item.getCount();
+        int maxStack = item.getMaxStackSize();
+
+        // Top up existing stacks of the same item
+        for (int slot = 0; slot < size && remaining > 0; slot++) {
+            Item current = inventory.getItem(slot);
+            if (current.isNull() || current.getCount() >= maxStack || !current.equals(item, true, true)) {
+                continue;
+            }
+            int moved = Math.min(remaining, maxStack - current.getCount());
+            current.setCount(current.getCount() + moved);
+            setItem(slot, current);
+            remaining -= moved;
+        }
+
+        // Then fill empty slots
+        for (int slot = 0; slot < size && remaining > 0; slot++) {
+            if (!inventory.getItem(slot).isNull()) {
+                continue;
+            }
+            Item stack = item.clone();
+            stack.setCount(Math.min(remaining, maxStack));
+            setItem(slot, stack);
+            remaining -= stack.getCount();
+        }
+
+        if (remaining <= 0) {
+            return null;
+        }
+        Item leftover = item.clone();
+        leftover.setCount(remaining);
+        return leftover;
+    }
+
+    /**
+     * Replace the item in a slot
+     * @param slot Inventory slot
+     * @param item New item
+     */
+    void setItem(int slot, Item item) {
+        inventory.setItem(slot, item, false);
+        dirty.set(slot);
+    }
+
+    /**
+     * Send the changed slots to the player
+     */
+    void flush() {
+        int changed = dirty.cardinality();
+        if (changed == 0) {
+            return;
+        }
+
+        // PERFORMANCE: One content packet is cheaper than many slot packets once most slots changed
+        if (changed > size / 2) {
+            inventory.sendContents(player);
+        } else {
+            for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+                inventory.sendSlot(slot, player);
+            }
+        }
+        dirty.clear();
+    }
+}
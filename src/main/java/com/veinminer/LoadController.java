@@ -0,0 +1,144 @@
+package com.veinminer;
+
+import cn.nukkit.scheduler.TaskHandler;
+
+/**
+ * Scales vein mining down while the server is under load and back up once it recovers
+ * The average tick time is sampled once per second and smoothed; between the configured low and high marks
+ * effects are switched off first, then vein size and the per-tick break budget shrink linearly towards
+ * the configured minimum. Only used from the main thread.
+ */
+public class LoadController {
+
+    private static final int SAMPLE_INTERVAL_TICKS = 20;
+    private static final double MS_PER_TICK_AT_FULL_USAGE = 50.0;
+
+    private final VeinMinerPlugin plugin;
+    private TaskHandler task;
+
+    private double smoothedMspt = -1;
+    private double scale = 1.0;
+    private boolean effectsEnabled = true;
+
+    // Per-tick break budget
+    private int budgetTick = -1;
+    private int brokenThisTick;
+
+    public LoadController(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.task = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, this::sample, SAMPLE_INTERVAL_TICKS, SAMPLE_INTERVAL_TICKS);
+    }
+
+    /**
+     * Take a tick time sample and update the degradation level
+     */
+    private void sample() {
+        VeinMinerSettings settings = plugin.getSettings();
+        double mspt = plugin.getServer().getTickUsageAverage() / 100.0 * MS_PER_TICK_AT_FULL_USAGE;
+        smoothedMspt = smoothedMspt < 0 ? mspt : smoothedMspt + settings.getAdaptiveSmoothing() * (mspt - smoothedMspt);
+
+        if (!settings.isAdaptiveEnabled()) {
+            scale = 1.0;
+            effectsEnabled = true;
+            return;
+        }
+
+        double low = settings.getAdaptiveMsptLow();
+        double high = settings.getAdaptiveMsptHigh();
+        double pressure = Math.max(0.0, Math.min(1.0, (smoothedMspt - low) / (high - low)));
+
+        // Effects go first (at any pressure), vein size shrinks with the pressure
+        effectsEnabled = pressure <= 0.0;
+        scale = 1.0 - pressure * (1.0 - settings.getAdaptiveMinScale());
+    }
+
+    /**
+     * Scale a vein size limit to the current load
+     * @param maxBlocks The configured limit
+     * @return Effective limit, at least 2 so vein mining keeps working
+     */
+    public int scaleVeinSize(int maxBlocks) {
+        if (scale >= 1.0) {
+            return maxBlocks;
+        }
+        return Math.max(2, (int) Math.floor(maxBlocks * scale));
+    }
+
+    /**
+     * Take up to the requested number of blocks from this tick's break budget
+     * @param requested Blocks the vein would mine
+     * @return Blocks allowed this tick
+     */
+    public int claimTickBudget(int requested) {
+        int budget = getTickBudget();
+        if (budget <= 0) {
+            return requested;
+        }
+
+        int tick = plugin.getServer().getTick();
+        if (tick != budgetTick) {
+            budgetTick = tick;
+            brokenThisTick = 0;
+        }
+        int allowed = Math.max(0, Math.min(requested, budget - brokenThisTick));
+        brokenThisTick += allowed;
+        return allowed;
+    }
+
+    /**
+     * Give back budget claimed this tick for blocks that were denied or not broken
+     * @param blocks Blocks to return
+     */
+    public void refundTickBudget(int blocks) {
+        if (blocks <= 0 || getTickBudget() <= 0 || plugin.getServer().getTick() != budgetTick) {
+            return;
+        }
+        brokenThisTick = Math.max(0, brokenThisTick - blocks);
+    }
+
+    /**
+     * @return Blocks VeinMiner may break per tick at the current load, 0 for unlimited
+     */
+    public int getTickBudget() {
+        int budget = plugin.getSettings().getBreakBudgetPerTick();
+        return budget <= 0 ? 0 : Math.max(2, (int) Math.floor(budget * scale));
+    }
+
+    /**
+     * @return false while particles and sounds are switched off because of load
+     */
+    public boolean isEffectsEnabled() {
+        return effectsEnabled;
+    }
+
+    /**
+     * @return Current fraction of the configured vein size and break budget (1.0 = no reduction)
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @return Smoothed milliseconds per tick, or -1 before the first sample
+     */
+    public double getSmoothedMspt() {
+        return smoothedMspt;
+    }
+
+    /**
+     * @return Human readable degradation level
+     */
+    public String getLevelName() {
+        if (effectsEnabled) {
+            return "normal";
+        }
+        return scale >= 1.0 ? "effects off" : "reduced";
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
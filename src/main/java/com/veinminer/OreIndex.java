@@ -0,0 +1,565 @@
+package com.veinminer;
+
+import cn.nukkit.Server;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockState;
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.Listener;
+import cn.nukkit.event.block.BlockBreakEvent;
+import cn.nukkit.event.block.BlockPlaceEvent;
+import cn.nukkit.event.level.ChunkLoadEvent;
+import cn.nukkit.event.level.ChunkUnloadEvent;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.ChunkSection;
+import cn.nukkit.level.format.IChunk;
+import cn.nukkit.level.format.palette.BlockPalette;
+import cn.nukkit.scheduler.AsyncTask;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Optional index of vein-mineable block positions in loaded chunks
+ * A chunk is scanned once off the main thread when it loads, into one bitset per section and block type.
+ * Breaks and placements (including vein mining) keep the bits current, and vein searches test bits instead of
+ * reading blocks. Changes made without those events (trees growing, pistons, /fill, other plugins) are caught by
+ * the chunk's change counter: a chunk that changed since its bits were last in sync is not used (the search reads
+ * its blocks) until a rescan has caught up. Vein mining verifies every block before breaking it.
+ * At most the configured number of chunks is kept, the oldest indexed chunk is dropped first.
+ * Only used from the main thread, apart from the scan itself.
+ */
+public class OreIndex implements Listener {
+
+    // Probe results
+    static final int NOT_INDEXED = -1;
+    static final int ABSENT = 0;
+    static final int PRESENT = 1;
+
+    private static final int MAX_SCAN_ATTEMPTS = 3;
+    private static final int BYTES_PER_SECTION_BITSET = SectionScanner.WORDS * Long.BYTES;
+    private static final int BYTES_PER_CHUNK_OVERHEAD = 64;
+    
+    // Palette value of block states not resolved yet
+    private static final int UNRESOLVED = -2;
+
+    private final VeinMinerPlugin plugin;
+    private final Map<Integer, Long2ObjectOpenHashMap<ChunkEntry>> levels;
+    private final LinkedHashSet<ChunkEntry> order;
+    private final Map<Integer, Long2ObjectOpenHashMap<ScanTask>> pending;
+    private int epoch;
+    private long memoryBytes;
+    private int pendingScans;
+
+    // Last chunk looked up by a probe, searches mostly stay inside one chunk
+    private ChunkEntry lastEntry;
+
+    public OreIndex(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.levels = new HashMap<>();
+        this.order = new LinkedHashSet<>();
+        this.pending = new HashMap<>();
+
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    public boolean isEnabled() {
+        return plugin.getSettings().isOreIndexEnabled();
+    }
+
+    /**
+     * Drop the whole index (settings changed); chunks are indexed again as they load
+     */
+    public void clear() {
+        epoch++;
+        levels.clear();
+        order.clear();
+        pending.clear();
+        pendingScans = 0;
+        memoryBytes = 0;
+        lastEntry = null;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (isEnabled()) {
+            schedule(event.getLevel(), event.getChunk(), 1);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        IChunk chunk = event.getChunk();
+        long chunkKey = PackedPos.chunkKey(chunk.getX(), chunk.getZ());
+        int levelId = event.getLevel().getId();
+        Long2ObjectOpenHashMap<ScanTask> levelPending = pending.get(levelId);
+        if (levelPending != null && levelPending.remove(chunkKey) != null) {
+            pendingScans--;
+        }
+        remove(levelId, chunkKey);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        // Protection check events are fired before any vein block is broken, and some are never broken;
+        // blocks vein mining does break are cleared by the plugin itself
+        if (plugin.getProtectionService().isFiringEvents()) {
+            return;
+        }
+        Block block = event.getBlock();
+        onBlockRemoved(block.getLevel(), block.getFloorX(), block.getFloorY(), block.getFloorZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlock();
+        onBlockAdded(block.getLevel(), block.getFloorX(), block.getFloorY(), block.getFloorZ(), block);
+    }
+
+    /**
+     * Update a position where a block was set without a place event (e.g. /vm undo)
+     */
+    void onBlockAdded(Level level, int x, int y, int z, Block block) {
+        onBlockRemoved(level, x, y, z);
+        BlockType type = plugin.getSettings().getBlockType(block.getId());
+        if (type != null) {
+            ChunkEntry entry = find(level, x >> 4, z >> 4);
+            if (entry != null) {
+                entry.set(type.getId(), y, SectionScanner.indexOf(x, y, z));
+            }
+        }
+    }
+
+    /**
+     * Clear a position that no longer holds a vein-mineable block
+     */
+    void onBlockRemoved(Level level, int x, int y, int z) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        ChunkEntry entry = find(level, x >> 4, z >> 4);
+        if (entry != null) {
+            entry.clear(y, SectionScanner.indexOf(x, y, z));
+        }
+    }
+
+    /**
+     * Look up a position in the index
+     * @return PRESENT, ABSENT, or NOT_INDEXED if the chunk has no current index (the caller reads the block)
+     */
+    int probe(Level level, int x, int y, int z, BlockType type) {
+        ChunkEntry entry = find(level, x >> 4, z >> 4);
+        if (entry == null || !isCurrent(entry)) {
+            return NOT_INDEXED;
+        }
+        return entry.contains(type.getId(), y, SectionScanner.indexOf(x, y, z)) ? PRESENT : ABSENT;
+    }
+
+    /**
+     * Create a read-only view for a search worker thread
+     * Only valid while the main thread waits for the search, so no updates can happen concurrently
+     */
+    Reader reader() {
+        return new Reader();
+    }
+
+    /**
+     * Count the indexed blocks of every type in a chunk
+     * @return Type name to count, or null if the chunk is not indexed
+     */
+    public Map<String, Integer> getDensity(Level level, int chunkX, int chunkZ) {
+        ChunkEntry entry = find(level, chunkX, chunkZ);
+        if (entry == null || !isCurrent(entry)) {
+            return null;
+        }
+        Map<String, Integer> density = new LinkedHashMap<>();
+        for (int t = 0; t < entry.typeIds.length; t++) {
+            int count = 0;
+            for (long[] section : entry.bits[t]) {
+                if (section != null) {
+                    for (long word : section) {
+                        count += Long.bitCount(word);
+                    }
+                }
+            }
+            if (count > 0) {
+                density.put(BlockRegistry.nameOf(entry.typeIds[t]), count);
+            }
+        }
+        return density;
+    }
+
+    public int getChunkCount() {
+        return order.size();
+    }
+
+    public int getPendingScans() {
+        return pendingScans;
+    }
+
+    /**
+     * @return Approximate memory held by the index (bitsets and per-chunk overhead)
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    private ChunkEntry find(Level level, int chunkX, int chunkZ) {
+        if (level == null) {
+            return null;
+        }
+        long chunkKey = PackedPos.chunkKey(chunkX, chunkZ);
+        ChunkEntry cached = lastEntry;
+        if (cached != null && cached.chunkKey == chunkKey && cached.levelId == level.getId()) {
+            return cached;
+        }
+        Long2ObjectOpenHashMap<ChunkEntry> chunks = levels.get(level.getId());
+        ChunkEntry entry = chunks == null ? null : chunks.get(chunkKey);
+        if (entry != null) {
+            lastEntry = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * Check that a chunk did not change outside the tracked events since its bits were last in sync (main thread)
+     * A stale chunk is rescanned and left unused until the new scan is published.
+     */
+    private boolean isCurrent(ChunkEntry entry) {
+        long changes = entry.chunk.getChanges();
+        if (entry.resync) {
+            // A tracked update was applied to the bits, accept the change it made to the chunk
+            entry.resync = false;
+            entry.changes = changes;
+        }
+        if (changes == entry.changes) {
+            return true;
+        }
+        schedule(entry.level, entry.chunk, 1);
+        return false;
+    }
+
+    private void schedule(Level level, IChunk chunk, int attempt) {
+        long chunkKey = PackedPos.chunkKey(chunk.getX(), chunk.getZ());
+        Long2ObjectOpenHashMap<ScanTask> levelPending = pending.computeIfAbsent(level.getId(), k -> new Long2ObjectOpenHashMap<>());
+        if (levelPending.containsKey(chunkKey)) {
+            return;
+        }
+        ScanTask task = new ScanTask(level, chunk, chunkKey, attempt);
+        levelPending.put(chunkKey, task);
+        pendingScans++;
+        plugin.getServer().getScheduler().scheduleAsyncTask(plugin, task);
+    }
+
+    /**
+     * Publish a finished scan (main thread)
+     */
+    private void publish(ScanTask task) {
+        if (task.epoch != epoch) {
+            return;
+        }
+        Long2ObjectOpenHashMap<ScanTask> levelPending = pending.get(task.levelId);
+        if (levelPending == null || levelPending.get(task.chunkKey) != task) {
+            // Unloaded while scanning
+            return;
+        }
+        levelPending.remove(task.chunkKey);
+        pendingScans--;
+
+        if (task.result == null || !task.chunk.isLoaded() || !isEnabled()) {
+            return;
+        }
+        // Changed while scanning: the scan may have missed it, try again
+        if (task.chunk.getChanges() != task.changesAtStart) {
+            if (task.attempt < MAX_SCAN_ATTEMPTS) {
+                schedule(task.level, task.chunk, task.attempt + 1);
+            }
+            return;
+        }
+
+        remove(task.levelId, task.chunkKey);
+        task.result.attach(task.level, task.chunk, task.changesAtStart);
+        levels.computeIfAbsent(task.levelId, k -> new Long2ObjectOpenHashMap<>()).put(task.chunkKey, task.result);
+        order.add(task.result);
+        memoryBytes += task.result.bytes;
+
+        // Bound memory: drop the oldest indexed chunks
+        int maxChunks = plugin.getSettings().getOreIndexMaxChunks();
+        Iterator<ChunkEntry> oldest = order.iterator();
+        while (order.size() > maxChunks && oldest.hasNext()) {
+            ChunkEntry evicted = oldest.next();
+            oldest.remove();
+            detach(evicted);
+        }
+    }
+
+    private void remove(int levelId, long chunkKey) {
+        Long2ObjectOpenHashMap<ChunkEntry> chunks = levels.get(levelId);
+        ChunkEntry entry = chunks == null ? null : chunks.get(chunkKey);
+        if (entry != null) {
+            order.remove(entry);
+            detach(entry);
+        }
+    }
+
+    private void detach(ChunkEntry entry) {
+        Long2ObjectOpenHashMap<ChunkEntry> chunks = levels.get(entry.levelId);
+        if (chunks != null && chunks.get(entry.chunkKey) == entry) {
+            chunks.remove(entry.chunkKey);
+            if (chunks.isEmpty()) {
+                levels.remove(entry.levelId);
+            }
+        }
+        memoryBytes -= entry.bytes;
+        if (lastEntry == entry) {
+            lastEntry = null;
+        }
+    }
+
+    /**
+     * Scan a chunk into section bitsets
+     * Blocks are read straight from each section's block palette, empty sections are skipped. Block states are
+     * resolved to type ids through a per-chunk primitive map, so the registry is consulted once per distinct state,
+     * and runs of the same state (stone, air) skip even that lookup.
+     */
+    static ChunkEntry scanChunk(int levelId, long chunkKey, IChunk chunk, int minY, int maxY, BlockRegistry registry) {
+        int minSection = minY >> 4;
+        int sections = (maxY >> 4) - minSection + 1;
+        ChunkEntry entry = new ChunkEntry(levelId, chunkKey, minSection, sections);
+
+        int[] ids = new int[SectionScanner.SECTION_BLOCKS];
+        // PERFORMANCE: Block state hash to type id without boxing
+        Int2IntOpenHashMap palette = new Int2IntOpenHashMap();
+        palette.defaultReturnValue(UNRESOLVED);
+        int[] present = new int[8];
+
+        for (int s = 0; s < sections; s++) {
+            ChunkSection section = chunk.getSection(minSection + s);
+            if (section == null || section.isEmpty()) {
+                continue;
+            }
+            BlockPalette blocks = section.blockLayer()[0];
+            int presentCount = 0;
+            BlockState lastState = null;
+            int typeId = SectionScanner.NONE;
+            for (int i = 0; i < SectionScanner.SECTION_BLOCKS; i++) {
+                BlockState state = blocks.get(i);
+                if (state != lastState) {
+                    lastState = state;
+                    typeId = state == null ? SectionScanner.NONE : typeOf(state, palette, registry);
+                    // A type can only show up where the state changes
+                    if (typeId != SectionScanner.NONE && indexOf(present, presentCount, typeId) < 0) {
+                        if (presentCount == present.length) {
+                            present = Arrays.copyOf(present, presentCount * 2);
+                        }
+                        present[presentCount++] = typeId;
+                    }
+                }
+                // Sections store blocks as x << 8 | z << 4 | y, the bitsets use y << 8 | z << 4 | x
+                ids[(i & 15) << 8 | (i & 0xF0) | (i >> 8)] = typeId;
+            }
+
+            for (int p = 0; p < presentCount; p++) {
+                long[] out = new long[SectionScanner.WORDS];
+                SectionScanner.scan(ids, present[p], out);
+                entry.put(present[p], s, out);
+            }
+        }
+        return entry;
+    }
+
+    private static int typeOf(BlockState state, Int2IntOpenHashMap palette, BlockRegistry registry) {
+        int hash = state.blockStateHash();
+        int typeId = palette.get(hash);
+        if (typeId == UNRESOLVED) {
+            BlockType type = registry.get(state.getIdentifier());
+            typeId = type == null ? SectionScanner.NONE : type.getId();
+            palette.put(hash, typeId);
+        }
+        return typeId;
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lookup for one worker thread, with its own last-chunk cache
+     */
+    final class Reader {
+        private ChunkEntry last;
+
+        /**
+         * @return PRESENT, ABSENT, or NOT_INDEXED if the chunk has no index
+         */
+        int probe(int levelId, int x, int y, int z, int typeId) {
+            long chunkKey = PackedPos.chunkKey(x >> 4, z >> 4);
+            ChunkEntry entry = last;
+            if (entry == null || entry.chunkKey != chunkKey || entry.levelId != levelId) {
+                Long2ObjectOpenHashMap<ChunkEntry> chunks = levels.get(levelId);
+                entry = chunks == null ? null : chunks.get(chunkKey);
+                if (entry == null) {
+                    return NOT_INDEXED;
+                }
+                last = entry;
+            }
+            // Workers can't schedule rescans, a stale chunk is simply read directly
+            if (entry.resync || entry.chunk.getChanges() != entry.changes) {
+                return NOT_INDEXED;
+            }
+            return entry.contains(typeId, y, SectionScanner.indexOf(x, y, z)) ? PRESENT : ABSENT;
+        }
+    }
+
+    /**
+     * Bitsets of one chunk: per type, per section, 4096 bits (null where a section has none)
+     */
+    static final class ChunkEntry {
+        private final int levelId;
+        private final long chunkKey;
+        private final int minSection;
+        private final int sections;
+        private int[] typeIds = new int[0];
+        private long[][][] bits = new long[0][][];
+        private long bytes = BYTES_PER_CHUNK_OVERHEAD;
+        // Chunk change counter the bits match, see isCurrent
+        private Level level;
+        private IChunk chunk;
+        private long changes;
+        private boolean resync;
+
+        ChunkEntry(int levelId, long chunkKey, int minSection, int sections) {
+            this.levelId = levelId;
+            this.chunkKey = chunkKey;
+            this.minSection = minSection;
+            this.sections = sections;
+        }
+
+        void attach(Level level, IChunk chunk, long changes) {
+            this.level = level;
+            this.chunk = chunk;
+            this.changes = changes;
+        }
+
+        boolean contains(int typeId, int y, int index) {
+            int section = (y >> 4) - minSection;
+            if (section < 0 || section >= sections) {
+                return false;
+            }
+            for (int t = 0; t < typeIds.length; t++) {
+                if (typeIds[t] == typeId) {
+                    long[] words = bits[t][section];
+                    return words != null && (words[index >> 6] & (1L << index)) != 0;
+                }
+            }
+            return false;
+        }
+
+        void set(int typeId, int y, int index) {
+            resync = true;
+            int section = (y >> 4) - minSection;
+            if (section < 0 || section >= sections) {
+                return;
+            }
+            long[][] typeBits = slot(typeId);
+            if (typeBits[section] == null) {
+                typeBits[section] = new long[SectionScanner.WORDS];
+                grow(BYTES_PER_SECTION_BITSET);
+            }
+            typeBits[section][index >> 6] |= 1L << index;
+        }
+
+        void clear(int y, int index) {
+            resync = true;
+            int section = (y >> 4) - minSection;
+            if (section < 0 || section >= sections) {
+                return;
+            }
+            for (long[][] typeBits : bits) {
+                long[] words = typeBits[section];
+                if (words != null) {
+                    words[index >> 6] &= ~(1L << index);
+                }
+            }
+        }
+
+        void put(int typeId, int section, long[] words) {
+            slot(typeId)[section] = words;
+            grow(BYTES_PER_SECTION_BITSET);
+        }
+
+        private long[][] slot(int typeId) {
+            for (int t = 0; t < typeIds.length; t++) {
+                if (typeIds[t] == typeId) {
+                    return bits[t];
+                }
+            }
+            typeIds = Arrays.copyOf(typeIds, typeIds.length + 1);
+            bits = Arrays.copyOf(bits, bits.length + 1);
+            typeIds[typeIds.length - 1] = typeId;
+            bits[bits.length - 1] = new long[sections][];
+            grow((long) sections * 8);
+            return bits[bits.length - 1];
+        }
+
+        private void grow(long delta) {
+            bytes += delta;
+        }
+    }
+
+    /**
+     * Off-thread scan of one chunk, published on the main thread
+     */
+    private final class ScanTask extends AsyncTask {
+        private final Level level;
+        private final IChunk chunk;
+        private final int levelId;
+        private final long chunkKey;
+        private final int attempt;
+        private final int epoch;
+        private final long changesAtStart;
+        private final int minY;
+        private final int maxY;
+        private final BlockRegistry registry;
+        private ChunkEntry result;
+
+        ScanTask(Level level, IChunk chunk, long chunkKey, int attempt) {
+            this.level = level;
+            this.chunk = chunk;
+            this.levelId = level.getId();
+            this.chunkKey = chunkKey;
+            this.attempt = attempt;
+            this.epoch = OreIndex.this.epoch;
+            this.changesAtStart = chunk.getChanges();
+            this.minY = level.getMinHeight();
+            this.maxY = level.getMaxHeight();
+            this.registry = plugin.getSettings().getBlockRegistry();
+        }
+
+        @Override
+        public void onRun() {
+            try {
+                result = scanChunk(levelId, chunkKey, chunk, minY, maxY, registry);
+            } catch (Exception e) {
+                // Chunk unloaded or changed underneath us, it is scanned again when it loads
+                result = null;
+            }
+        }
+
+        @Override
+        public void onCompletion(Server server) {
+            publish(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.veinminer;
+
+/**
+ * Packs block coordinates into a single long to avoid allocating position objects
+ * Layout: 26 bits x | 12 bits y | 26 bits z (all signed)
+ */
+public final class PackedPos {
+
+    private PackedPos() {
+    }
+
+    /**
+     * Pack block coordinates into a long
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @return Packed position
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (y & 0xFFF) << 26) | (z & 0x3FFFFFFL);
+    }
+
+    public static int x(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int y(long packed) {
+        return (int) (packed << 26 >> 52);
+    }
+
+    public static int z(long packed) {
+        return (int) (packed << 38 >> 38);
+    }
+
+    /**
+     * Get the key of the chunk containing a packed position
+     * @param packed Packed position
+     * @return Chunk key (see {@link #chunkKey(int, int)})
+     */
+    public static long chunkKeyOf(long packed) {
+        return chunkKey(x(packed) >> 4, z(packed) >> 4);
+    }
+
+    /**
+     * Pack chunk coordinates into a long
+     * @param chunkX Chunk X
+     * @param chunkZ Chunk Z
+     * @return Chunk key
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+}
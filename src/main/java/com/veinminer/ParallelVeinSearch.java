@@ -0,0 +1,325 @@
+package com.veinminer;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockState;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.IChunk;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous breadth-first search for very large veins, expanding each frontier on a fork-join pool
+ * The main thread waits for the pool, so the world and the {@link OreIndex} cannot change while workers read
+ * them: the search runs on a consistent snapshot without copying it.
+ * Every new neighbour is claimed once through a concurrent visited bitset. Its position in the next frontier is the
+ * smallest (parent index, offset index) that reaches it, which is exactly where the sequential
+ * {@link VeinSearch#breadthFirst} queue would have put it. The result (positions, order and truncation) is
+ * therefore identical to the sequential search.
+ */
+final class ParallelVeinSearch {
+
+    // Frontier slices below this size are expanded without forking further
+    private static final int SLICE = 64;
+
+    private static final int NO_MATCH = 0;
+    private static final int MATCH = 1;
+    private static final int UNLOADED = 2;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threads Worker threads, 0 for one less than the available processors
+     */
+    ParallelVeinSearch(int threads) {
+        int parallelism = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Find connected blocks of the start block's type in breadth-first order
+     * @param startBlock The initial block to start from
+     * @param registry Block registry resolving neighbour types
+     * @param index Ore index, or null to read every neighbour from its chunk
+     * @param type Type of the start block
+     * @param limit Maximum number of blocks to collect
+     * @return Vein rooted at the start block, equal to the sequential search result
+     */
+    VeinResult breadthFirst(Block startBlock, BlockRegistry registry, OreIndex index, BlockType type, int limit) {
+        Level level = startBlock.getLevel();
+        Search search = new Search(level, registry, index, type);
+
+        long origin = PackedPos.pack(startBlock.getFloorX(), startBlock.getFloorY(), startBlock.getFloorZ());
+        search.visited.add(origin);
+
+        long[] found = new long[Math.min(limit, 1024)];
+        found[0] = origin;
+        int size = 1;
+        long[] frontier = {origin};
+        boolean truncated = false;
+
+        boolean unloadedBorder = false;
+
+        while (frontier.length > 0 && size < limit) {
+            search.frontier = frontier;
+            search.frontierIndex = indexFrontier(frontier);
+
+            Expansion expansion = pool.invoke(new ExpandTask(search, 0, frontier.length));
+            int[] keys = expansion.members;
+            Arrays.sort(keys);
+
+            // Keys map back to positions: parent index * offsets + offset index
+            int offsetCount = search.offsets.length / 3;
+            long[] next = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                long parent = frontier[keys[i] / offsetCount];
+                int k = (keys[i] % offsetCount) * 3;
+                next[i] = PackedPos.pack(PackedPos.x(parent) + search.offsets[k], PackedPos.y(parent) + search.offsets[k + 1],
+                    PackedPos.z(parent) + search.offsets[k + 2]);
+            }
+
+            // The sequential search stops expanding at the first parent whose queued children fill the limit
+            int cutoff = frontier.length;
+            if (size + next.length >= limit) {
+                // Members beyond the limit are left out
+                truncated = size + next.length > limit;
+                int children = 0;
+                for (int parent = 0; parent < frontier.length; parent++) {
+                    if (size + children >= limit) {
+                        cutoff = parent;
+                        break;
+                    }
+                    while (children < keys.length && keys[children] / offsetCount == parent) {
+                        children++;
+                    }
+                }
+            }
+            for (int key : expansion.unloaded) {
+                if (key / offsetCount < cutoff) {
+                    unloadedBorder = true;
+                    break;
+                }
+            }
+
+            int take = Math.min(next.length, limit - size);
+            if (size + take > found.length) {
+                found = Arrays.copyOf(found, Math.min(limit, Math.max(found.length * 2, size + take)));
+            }
+            System.arraycopy(next, 0, found, size, take);
+            size += take;
+            frontier = next;
+        }
+
+        // Like the sequential search, a vein of exactly the limit is truncated only if its last level has one more member
+        if (!truncated && size >= limit && frontier.length > 0) {
+            search.frontier = frontier;
+            search.frontierIndex = indexFrontier(frontier);
+            truncated = pool.invoke(new ExpandTask(search, 0, frontier.length)).members.length > 0;
+        }
+
+        return new VeinResult(level, type, Arrays.copyOf(found, size), truncated, unloadedBorder);
+    }
+
+    private static Long2IntOpenHashMap indexFrontier(long[] frontier) {
+        Long2IntOpenHashMap frontierIndex = new Long2IntOpenHashMap(frontier.length * 2);
+        frontierIndex.defaultReturnValue(-1);
+        for (int i = 0; i < frontier.length; i++) {
+            frontierIndex.put(frontier[i], i);
+        }
+        return frontierIndex;
+    }
+
+    /**
+     * Shared state of one search
+     */
+    private static final class Search {
+        private final Level level;
+        private final int levelId;
+        private final BlockRegistry registry;
+        private final OreIndex index;
+        private final BlockType type;
+        private final int[] offsets;
+        private final int minY;
+        private final int maxY;
+        private final VisitedBits visited = new VisitedBits();
+
+        // Current level, read-only while it is expanded
+        private long[] frontier;
+        private Long2IntOpenHashMap frontierIndex;
+
+        Search(Level level, BlockRegistry registry, OreIndex index, BlockType type) {
+            this.level = level;
+            this.levelId = level.getId();
+            this.registry = registry;
+            this.index = index;
+            this.type = type;
+            this.offsets = type.getConnectivity().offsets();
+            this.minY = level.getMinHeight();
+            this.maxY = level.getMaxHeight();
+        }
+
+        /**
+         * Smallest key (parent index * offsets + offset index) through which the current frontier reaches a position
+         */
+        int minKey(int x, int y, int z) {
+            int offsetCount = offsets.length / 3;
+            int best = Integer.MAX_VALUE;
+            for (int k = 0; k < offsets.length; k += 3) {
+                int parent = frontierIndex.get(PackedPos.pack(x - offsets[k], y - offsets[k + 1], z - offsets[k + 2]));
+                if (parent >= 0) {
+                    best = Math.min(best, parent * offsetCount + k / 3);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Keys claimed by one frontier slice: new vein members and unloaded neighbours
+     */
+    private static final class Expansion {
+        private final int[] members;
+        private final int[] unloaded;
+
+        Expansion(int[] members, int[] unloaded) {
+            this.members = members;
+            this.unloaded = unloaded;
+        }
+
+        Expansion merge(Expansion other) {
+            return new Expansion(concat(members, other.members), concat(unloaded, other.unloaded));
+        }
+
+        private static int[] concat(int[] a, int[] b) {
+            int[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            return result;
+        }
+    }
+
+    /**
+     * Expands a slice of the frontier and returns the keys of the new vein members it claimed
+     */
+    private static final class ExpandTask extends RecursiveTask<Expansion> {
+        private final Search search;
+        private final int from;
+        private final int to;
+
+        ExpandTask(Search search, int from, int to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Expansion compute() {
+            if (to - from > SLICE) {
+                int middle = (from + to) >>> 1;
+                ExpandTask left = new ExpandTask(search, from, middle);
+                left.fork();
+                Expansion right = new ExpandTask(search, middle, to).compute();
+                return left.join().merge(right);
+            }
+
+            OreIndex.Reader reader = search.index != null ? search.index.reader() : null;
+            int[] offsets = search.offsets;
+            int[] members = new int[16];
+            int count = 0;
+            int[] unloaded = new int[0];
+            for (int i = from; i < to; i++) {
+                long current = search.frontier[i];
+                int cx = PackedPos.x(current);
+                int cy = PackedPos.y(current);
+                int cz = PackedPos.z(current);
+                for (int k = 0; k < offsets.length; k += 3) {
+                    int nx = cx + offsets[k];
+                    int ny = cy + offsets[k + 1];
+                    int nz = cz + offsets[k + 2];
+                    // Whoever claims the position probes it, once for the whole search
+                    if (ny < search.minY || ny > search.maxY || !search.visited.add(PackedPos.pack(nx, ny, nz))) {
+                        continue;
+                    }
+                    int probe = probe(reader, nx, ny, nz);
+                    if (probe == MATCH) {
+                        if (count == members.length) {
+                            members = Arrays.copyOf(members, count * 2);
+                        }
+                        members[count++] = search.minKey(nx, ny, nz);
+                    } else if (probe == UNLOADED) {
+                        unloaded = Arrays.copyOf(unloaded, unloaded.length + 1);
+                        unloaded[unloaded.length - 1] = search.minKey(nx, ny, nz);
+                    }
+                }
+            }
+            return new Expansion(Arrays.copyOf(members, count), unloaded);
+        }
+
+        /**
+         * Same answers as the sequential probe, reading blocks straight from the loaded chunk
+         * @return MATCH, NO_MATCH or UNLOADED
+         */
+        private int probe(OreIndex.Reader reader, int x, int y, int z) {
+            if (reader != null) {
+                int indexed = reader.probe(search.levelId, x, y, z, search.type.getId());
+                if (indexed != OreIndex.NOT_INDEXED) {
+                    return indexed == OreIndex.PRESENT ? MATCH : NO_MATCH;
+                }
+            }
+            // Never load chunks, the unloaded edge is reported like in the sequential search
+            if (!search.level.isChunkLoaded(x >> 4, z >> 4)) {
+                return UNLOADED;
+            }
+            try {
+                IChunk chunk = search.level.getChunk(x >> 4, z >> 4);
+                BlockState state = chunk == null ? null : chunk.getBlockState(x & 15, y, z & 15);
+                return state != null && search.registry.get(state.getIdentifier()) == search.type ? MATCH : NO_MATCH;
+            } catch (Exception e) {
+                // Skip invalid blocks
+                return NO_MATCH;
+            }
+        }
+    }
+
+    /**
+     * Concurrent visited set: one 4096 bit set per section, claimed with compare-and-set
+     */
+    private static final class VisitedBits {
+        private final ConcurrentHashMap<Long, AtomicLongArray> sections = new ConcurrentHashMap<>();
+
+        /**
+         * @return true if the position was not visited before (this caller claimed it)
+         */
+        boolean add(long packed) {
+            int x = PackedPos.x(packed);
+            int y = PackedPos.y(packed);
+            int z = PackedPos.z(packed);
+            long sectionKey = PackedPos.pack(x & ~15, y & ~15, z & ~15);
+            AtomicLongArray words = sections.computeIfAbsent(sectionKey, k -> new AtomicLongArray(SectionScanner.WORDS));
+
+            int index = SectionScanner.indexOf(x, y, z);
+            long mask = 1L << index;
+            int word = index >> 6;
+            while (true) {
+                long current = words.get(word);
+                if ((current & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(word, current, current | mask)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.veinminer;
+
+/**
+ * Vein mining limits resolved for one player in their current world
+ * Built once on join, world change and reload so the break handler reads precomputed values
+ */
+public class PlayerProfile {
+
+    // Eligibility flags, kept up to date from events instead of being checked per break
+    public static final int FLAG_PERMISSION = 1;      // has veinminer.use
+    public static final int FLAG_ENABLED = 1 << 1;    // not toggled off with /vm off
+    public static final int FLAG_WORLD = 1 << 2;      // vein mining allowed in current world
+    public static final int FLAG_SNEAKING = 1 << 3;   // sneaking (or sneaking not required)
+    public static final int FLAGS_ALLOWED = FLAG_PERMISSION | FLAG_ENABLED | FLAG_WORLD;
+    public static final int FLAGS_ELIGIBLE = FLAGS_ALLOWED | FLAG_SNEAKING;
+
+    private final String tierName;
+    private final int maxBlocks;
+    private final int searchLimit;
+    private final int blocksPerSecond;
+    private final boolean asyncEligible;
+    private final double durabilityMultiplier;
+    private final VeinSearch.Mode searchMode;
+
+    // Written on the main thread, volatile so other threads see a consistent value
+    private volatile int flags;
+
+    // Token bucket for blocks-per-second (main thread only)
+    private double tokens;
+    private long lastRefill;
+
+    public PlayerProfile(String tierName, int maxBlocks, int searchLimit, int blocksPerSecond,
+                         boolean asyncEligible, double durabilityMultiplier, VeinSearch.Mode searchMode, int flags) {
+        this.tierName = tierName;
+        this.maxBlocks = maxBlocks;
+        this.searchLimit = searchLimit;
+        this.blocksPerSecond = blocksPerSecond;
+        this.asyncEligible = asyncEligible;
+        this.durabilityMultiplier = durabilityMultiplier;
+        this.searchMode = searchMode;
+        this.flags = flags;
+        this.tokens = blocksPerSecond;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Carry the rate limit state over from a previous profile so re-resolving cannot reset it
+     * @param previous The profile being replaced
+     */
+    void inheritRateLimit(PlayerProfile previous) {
+        if (previous != null && blocksPerSecond > 0) {
+            this.tokens = Math.min(blocksPerSecond, previous.tokens);
+            this.lastRefill = previous.lastRefill;
+        }
+    }
+
+    /**
+     * Check every eligibility flag at once
+     * @return true if the player is allowed to vein mine right now (block and tool aside)
+     */
+    public boolean isEligible() {
+        return (flags & FLAGS_ELIGIBLE) == FLAGS_ELIGIBLE;
+    }
+
+    /**
+     * Check the given eligibility flags
+     * @param mask Flags that must all be set
+     * @return true if all flags are set
+     */
+    public boolean hasFlags(int mask) {
+        return (flags & mask) == mask;
+    }
+
+    /**
+     * Set or clear an eligibility flag (main thread only)
+     * @param flag The flag to change
+     * @param value New value
+     */
+    public void setFlag(int flag, boolean value) {
+        flags = value ? (flags | flag) : (flags & ~flag);
+    }
+
+    /**
+     * Check if at least a minimal vein (2 blocks) fits in the rate limit
+     * @return true if vein mining is currently allowed
+     */
+    public boolean hasBudget() {
+        if (blocksPerSecond <= 0) {
+            return true;
+        }
+        refill();
+        return tokens >= 2;
+    }
+
+    /**
+     * Take up to the requested number of blocks from the rate limit
+     * @param requested Blocks the vein would mine
+     * @return Blocks allowed right now
+     */
+    public int claimBlocks(int requested) {
+        if (blocksPerSecond <= 0) {
+            return requested;
+        }
+        refill();
+        int allowed = (int) Math.min(requested, Math.floor(tokens));
+        tokens -= allowed;
+        return allowed;
+    }
+
+    /**
+     * Give back blocks claimed for a vein that were not mined
+     * @param blocks Blocks to return
+     */
+    public void refundBlocks(int blocks) {
+        if (blocksPerSecond > 0 && blocks > 0) {
+            tokens = Math.min(blocksPerSecond, tokens + blocks);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(blocksPerSecond, tokens + (now - lastRefill) / 1_000_000_000.0 * blocksPerSecond);
+        lastRefill = now;
+    }
+
+    public String getTierName() {
+        return tierName;
+    }
+
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    /**
+     * @return Maximum blocks to search (may exceed maxBlocks so the rest can be cached)
+     */
+    public int getSearchLimit() {
+        return searchLimit;
+    }
+
+    public int getBlocksPerSecond() {
+        return blocksPerSecond;
+    }
+
+    /**
+     * @return true if this player's large veins may be searched on the parallel search workers
+     */
+    public boolean isAsyncEligible() {
+        return asyncEligible;
+    }
+
+    public double getDurabilityMultiplier() {
+        return durabilityMultiplier;
+    }
+
+    /**
+     * @return Search mode (the player's preference or the server default)
+     */
+    public VeinSearch.Mode getSearchMode() {
+        return searchMode;
+    }
+
+    public boolean isWorldEnabled() {
+        return hasFlags(FLAG_WORLD);
+    }
+}
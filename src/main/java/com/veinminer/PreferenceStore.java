@@ -0,0 +1,337 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.scheduler.AsyncTask;
+import cn.nukkit.scheduler.TaskHandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent per-player preferences (toggle, preview, search mode)
+ * Stored in a compact binary file: 18 bytes per player, only players with non-default preferences are written.
+ * The file is loaded asynchronously on enable and flushed write-behind, so reads are always in-memory
+ * and a toggle never triggers a file rewrite on the main thread. Nothing is written before the file was
+ * loaded, so a session's changes can never replace the saved preferences of everyone else.
+ */
+public class PreferenceStore {
+
+    // Logging tag
+    private static final String LOG_TAG = "[VeinMiner] ";
+
+    private static final String FILE_NAME = "preferences.dat";
+    private static final int MAGIC = 0x564D5046; // "VMPF"
+    private static final int VERSION = 1;
+    private static final int FLUSH_INTERVAL_TICKS = 600; // 30 seconds
+
+    // Preference bits (default preferences are all zero so they never need to be stored)
+    private static final int PREF_DISABLED = 1;
+    private static final int PREF_PREVIEW_OFF = 1 << 1;
+    private static final int MODE_SHIFT = 8;
+    private static final int MODE_MASK = 0xFF << MODE_SHIFT;
+
+    // Search mode codes (0 = server default)
+    private static final int MODE_DEFAULT = 0;
+    private static final int MODE_NEAREST = 1;
+    private static final int MODE_BREADTH_FIRST = 2;
+
+    private final VeinMinerPlugin plugin;
+    private final Map<UUID, Integer> preferences;
+    private final File file;
+    private volatile boolean dirty = false;
+    private volatile boolean loaded = false;
+    private TaskHandler flushTask;
+    
+    // Players whose preferences changed before the file finished loading, their stored values are stale
+    private final Set<UUID> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    
+    // Snapshots are numbered so a slow flush can never overwrite a newer one (guarded by writeFile's lock)
+    private final AtomicLong snapshotSequence = new AtomicLong();
+    private long writtenSequence;
+
+    public PreferenceStore(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.preferences = new ConcurrentHashMap<>();
+        this.file = new File(plugin.getDataFolder(), FILE_NAME);
+    }
+
+    /**
+     * Load preferences asynchronously and start the write-behind flush task
+     * Online players are re-resolved once loading finishes so their saved toggle applies
+     */
+    public void start() {
+        scheduleLoad();
+
+        flushTask = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, () -> {
+            if (!loaded) {
+                // The first read failed, retry it instead of writing over the file
+                scheduleLoad();
+            } else if (dirty) {
+                save(true);
+            }
+        }, FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    /**
+     * Flush pending changes synchronously (plugin shutdown)
+     * If the file was not loaded yet it is read and merged first, a failed read skips the write
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+        if (!dirty) {
+            return;
+        }
+        if (!load()) {
+            plugin.getLogger().warning(LOG_TAG + "Player preferences changed this session were not saved, " + FILE_NAME + " could not be read");
+            return;
+        }
+        save(false);
+    }
+
+    private void scheduleLoad() {
+        plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+            @Override
+            public void onRun() {
+                if (!loaded && load()) {
+                    plugin.getServer().getScheduler().scheduleTask(plugin, () -> plugin.getProfileManager().refreshAll());
+                }
+            }
+        });
+    }
+
+    /**
+     * Read the file and merge it into the in-memory preferences, once
+     * @return true if the preferences are loaded, false if the file could not be read
+     */
+    private synchronized boolean load() {
+        if (loaded) {
+            return true;
+        }
+        Map<UUID, Integer> loadedPreferences = readFile();
+        if (loadedPreferences == null) {
+            return false;
+        }
+        // Changes made while loading win over the file, including resets to the default (no entry)
+        for (Map.Entry<UUID, Integer> entry : loadedPreferences.entrySet()) {
+            preferences.compute(entry.getKey(), (uuid, current) ->
+                current != null || changedWhileLoading.contains(uuid) ? current : entry.getValue());
+        }
+        loaded = true;
+        changedWhileLoading.clear();
+        return true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param uuid Player UUID
+     * @return true if the player turned vein mining off
+     */
+    public boolean isDisabled(UUID uuid) {
+        return (get(uuid) & PREF_DISABLED) != 0;
+    }
+
+    public void setDisabled(UUID uuid, boolean disabled) {
+        update(uuid, PREF_DISABLED, disabled ? PREF_DISABLED : 0);
+    }
+
+    /**
+     * @param uuid Player UUID
+     * @return true unless the player turned the vein preview off
+     */
+    public boolean isPreviewEnabled(UUID uuid) {
+        return (get(uuid) & PREF_PREVIEW_OFF) == 0;
+    }
+
+    public void setPreviewEnabled(UUID uuid, boolean enabled) {
+        update(uuid, PREF_PREVIEW_OFF, enabled ? 0 : PREF_PREVIEW_OFF);
+    }
+
+    /**
+     * Get the player's preferred search mode
+     * @param uuid Player UUID
+     * @return Preferred mode, or null to use the server default
+     */
+    public VeinSearch.Mode getSearchMode(UUID uuid) {
+        switch ((get(uuid) & MODE_MASK) >>> MODE_SHIFT) {
+            case MODE_NEAREST:
+                return VeinSearch.Mode.NEAREST;
+            case MODE_BREADTH_FIRST:
+                return VeinSearch.Mode.BREADTH_FIRST;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Set the player's preferred search mode
+     * @param uuid Player UUID
+     * @param mode Preferred mode, or null for the server default
+     */
+    public void setSearchMode(UUID uuid, VeinSearch.Mode mode) {
+        int code = mode == null ? MODE_DEFAULT : (mode == VeinSearch.Mode.NEAREST ? MODE_NEAREST : MODE_BREADTH_FIRST);
+        update(uuid, MODE_MASK, code << MODE_SHIFT);
+    }
+
+    /**
+     * Convenience check used by commands
+     * @param player The player
+     * @return true if the player turned vein mining off
+     */
+    public boolean isDisabled(Player player) {
+        return player != null && isDisabled(player.getUniqueId());
+    }
+
+    private int get(UUID uuid) {
+        Integer value = preferences.get(uuid);
+        return value == null ? 0 : value;
+    }
+
+    private void update(UUID uuid, int mask, int bits) {
+        if (!loaded) {
+            changedWhileLoading.add(uuid);
+        }
+        preferences.compute(uuid, (k, current) -> {
+            int value = ((current == null ? 0 : current) & ~mask) | (bits & mask);
+            // Default preferences are not stored, keeping the map and file small
+            return value == 0 ? null : value;
+        });
+        dirty = true;
+    }
+
+    /**
+     * Write all preferences to disk, only called once the file was loaded
+     * @param async Whether to write asynchronously
+     */
+    private void save(boolean async) {
+        dirty = false;
+        final Map<UUID, Integer> snapshot = new HashMap<>(preferences);
+        final long sequence = snapshotSequence.incrementAndGet();
+
+        if (async) {
+            plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+                @Override
+                public void onRun() {
+                    writeFile(snapshot, sequence);
+                }
+            });
+        } else {
+            writeFile(snapshot, sequence);
+        }
+    }
+
+    /**
+     * Write a snapshot, single writer at a time
+     * @param snapshot Preferences to write
+     * @param sequence Number of the snapshot, older snapshots than the last written one are skipped
+     */
+    private synchronized void writeFile(Map<UUID, Integer> snapshot, long sequence) {
+        // An async flush finishing after a newer flush or the shutdown save must not write its older state
+        if (sequence <= writtenSequence) {
+            return;
+        }
+        File temp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try {
+            file.getParentFile().mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<UUID, Integer> entry : snapshot.entrySet()) {
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeByte(entry.getValue() & 0xFF);
+                    out.writeByte((entry.getValue() & MODE_MASK) >>> MODE_SHIFT);
+                }
+            }
+            // Replace atomically so a crash mid-write never leaves a truncated file
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Some file systems can't replace atomically, a plain replace is the best they offer
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            writtenSequence = sequence;
+        } catch (IOException e) {
+            dirty = true; // Retry on the next flush
+            plugin.getLogger().warning(LOG_TAG + "Failed to save player preferences: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read the preferences file
+     * A file that can't be used is copied to a backup before the next save replaces it.
+     * @return Stored preferences, or null if reading failed and should be retried
+     */
+    private synchronized Map<UUID, Integer> readFile() {
+        Map<UUID, Integer> result = new HashMap<>();
+        if (!file.exists()) {
+            return result;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                plugin.getLogger().warning(LOG_TAG + "Ignoring " + FILE_NAME + ": not a preferences file");
+                return backup() ? result : null;
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                plugin.getLogger().warning(LOG_TAG + "Ignoring " + FILE_NAME + ": unsupported version " + version);
+                return backup() ? result : null;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                int flags = in.readUnsignedByte();
+                int mode = in.readUnsignedByte();
+                int value = flags | (mode << MODE_SHIFT);
+                if (value != 0) {
+                    result.put(uuid, value);
+                }
+            }
+        } catch (EOFException e) {
+            plugin.getLogger().warning(LOG_TAG + FILE_NAME + " is truncated, loaded " + result.size() + " entries");
+            return backup() ? result : null;
+        } catch (IOException e) {
+            plugin.getLogger().warning(LOG_TAG + "Failed to load player preferences: " + e.getMessage());
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Keep a copy of an unusable file, the next save would replace it
+     * @return true if the copy was written
+     */
+    private boolean backup() {
+        File copy = new File(file.getParentFile(), FILE_NAME + ".bak");
+        try {
+            Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            plugin.getLogger().warning(LOG_TAG + "Kept the old file as " + copy.getName());
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning(LOG_TAG + "Failed to back up " + FILE_NAME + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
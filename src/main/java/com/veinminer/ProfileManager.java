@@ -0,0 +1,216 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.Listener;
+import cn.nukkit.event.entity.EntityLevelChangeEvent;
+import cn.nukkit.event.player.PlayerJoinEvent;
+import cn.nukkit.event.player.PlayerQuitEvent;
+import cn.nukkit.event.player.PlayerToggleSneakEvent;
+import cn.nukkit.level.Level;
+import cn.nukkit.scheduler.TaskHandler;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves and caches per-player vein mining profiles
+ * Tiers are matched by permission and world overrides applied on join, world change and reload,
+ * and eligibility flags are updated from events, so the break handler never scans world lists
+ * or checks permissions
+ */
+public class ProfileManager implements Listener {
+
+    // Logging tag
+    private static final String LOG_TAG = "[VeinMiner] ";
+
+    private static final String USE_PERMISSION = "veinminer.use";
+
+    private final VeinMinerPlugin plugin;
+    private final Map<UUID, PlayerProfile> profiles;
+
+    private TaskHandler permissionRefreshTask;
+
+    public ProfileManager(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.profiles = new ConcurrentHashMap<>();
+
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        restart();
+    }
+
+    /**
+     * (Re)start the permission refresh task and re-resolve every online player
+     * Called after a new settings snapshot has been applied
+     */
+    public void restart() {
+        // Permission plugins don't fire an event on change, so re-check the use permission periodically
+        if (permissionRefreshTask != null) {
+            permissionRefreshTask.cancel();
+        }
+        int refreshTicks = plugin.getSettings().getPermissionRefreshTicks();
+        permissionRefreshTask = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin,
+            this::refreshPermissions, refreshTicks, refreshTicks);
+
+        refreshAll();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLevelChange(EntityLevelChangeEvent event) {
+        if (event.getEntity() instanceof Player) {
+            Player player = (Player) event.getEntity();
+            update(player, event.getTarget());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onToggleSneak(PlayerToggleSneakEvent event) {
+        PlayerProfile profile = profiles.get(event.getPlayer().getUniqueId());
+        if (profile != null) {
+            profile.setFlag(PlayerProfile.FLAG_SNEAKING, event.isSneaking() || !plugin.getSettings().isSneakRequired());
+        }
+    }
+
+    /**
+     * Clean up player data when they disconnect to prevent memory leaks
+     */
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        profiles.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Get the cached profile of a player, resolving it if missing
+     * @param player The player
+     * @return The player's profile
+     */
+    public PlayerProfile getProfile(Player player) {
+        PlayerProfile profile = profiles.get(player.getUniqueId());
+        if (profile == null) {
+            profile = refresh(player);
+        }
+        return profile;
+    }
+
+    /**
+     * Re-resolve the profile of a player in their current world
+     * @param player The player
+     * @return The new profile
+     */
+    public PlayerProfile refresh(Player player) {
+        return update(player, player.getLevel());
+    }
+
+    /**
+     * Update the toggle flag after /vm on, off or toggle
+     * @param player The player
+     * @param enabled Whether vein mining is now enabled for the player
+     */
+    public void setToggledOn(Player player, boolean enabled) {
+        getProfile(player).setFlag(PlayerProfile.FLAG_ENABLED, enabled);
+    }
+
+    /**
+     * Re-check the use permission of every online player
+     */
+    private void refreshPermissions() {
+        for (Player player : plugin.getServer().getOnlinePlayers().values()) {
+            PlayerProfile profile = profiles.get(player.getUniqueId());
+            if (profile != null) {
+                profile.setFlag(PlayerProfile.FLAG_PERMISSION, player.hasPermission(USE_PERMISSION));
+            }
+        }
+    }
+
+    /**
+     * Re-resolve the profiles of all online players
+     */
+    public void refreshAll() {
+        for (Player player : plugin.getServer().getOnlinePlayers().values()) {
+            refresh(player);
+        }
+    }
+
+    private PlayerProfile update(Player player, Level level) {
+        PlayerProfile profile = resolve(player, level);
+        profile.inheritRateLimit(profiles.get(player.getUniqueId()));
+        profiles.put(player.getUniqueId(), profile);
+        return profile;
+    }
+
+    /**
+     * Resolve the limits of a player for a world
+     * The last tier in config order the player has permission for wins
+     * @param player The player
+     * @param level The world the player is in (or moving to)
+     * @return Resolved profile
+     */
+    private PlayerProfile resolve(Player player, Level level) {
+        VeinMinerSettings settings = plugin.getSettings();
+        VeinTier tier = settings.getDefaultTier();
+        for (VeinTier candidate : settings.getTiers()) {
+            if (player.hasPermission(candidate.getPermission())) {
+                tier = candidate;
+            }
+        }
+
+        int maxBlocks = tier.getMaxBlocks();
+        int blocksPerSecond = tier.getBlocksPerSecond();
+        boolean async = tier.isAsync();
+        double durabilityMultiplier = tier.getDurabilityMultiplier();
+        boolean worldEnabled = true;
+
+        if (level != null) {
+            String world = level.getName();
+            worldEnabled = !settings.isWorldDisabled(world);
+
+            WorldOverride override = settings.getWorldOverride(world);
+            if (override != null) {
+                if (override.maxBlocks != null) {
+                    maxBlocks = override.maxBlocks;
+                }
+                if (override.blocksPerSecond != null) {
+                    blocksPerSecond = override.blocksPerSecond;
+                }
+                if (override.async != null) {
+                    async = override.async;
+                }
+                if (override.durabilityMultiplier != null) {
+                    durabilityMultiplier = override.durabilityMultiplier;
+                }
+                if (override.enabled != null) {
+                    worldEnabled = worldEnabled && override.enabled;
+                }
+            }
+        }
+
+        int flags = 0;
+        if (player.hasPermission(USE_PERMISSION)) {
+            flags |= PlayerProfile.FLAG_PERMISSION;
+        }
+        if (!plugin.isToggledOff(player)) {
+            flags |= PlayerProfile.FLAG_ENABLED;
+        }
+        if (worldEnabled) {
+            flags |= PlayerProfile.FLAG_WORLD;
+        }
+        if (!settings.isSneakRequired() || player.isSneaking()) {
+            flags |= PlayerProfile.FLAG_SNEAKING;
+        }
+
+        VeinSearch.Mode searchMode = plugin.getPreferenceStore().getSearchMode(player.getUniqueId());
+        if (searchMode == null) {
+            searchMode = settings.getSearchMode();
+        }
+
+        int searchLimit = (int) Math.min(Integer.MAX_VALUE, (long) maxBlocks * settings.getSearchMultiplier());
+        return new PlayerProfile(tier.getName(), maxBlocks, searchLimit, blocksPerSecond, async, durabilityMultiplier, searchMode, flags);
+    }
+}
@@ -0,0 +1,172 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.Listener;
+import cn.nukkit.event.block.BlockBreakEvent;
+import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
+import com.veinminer.api.ProtectionProvider;
+import com.veinminer.api.VeinBreakCheckEvent;
+import com.veinminer.api.VeinBounds;
+import com.veinminer.api.VeinPositions;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Protection checks for the blocks of a vein beyond the broken one
+ * Registered providers see the whole vein once and return an allowed bitmask. Providers without bulk
+ * support are asked per block, and protection plugins unaware of VeinMiner are covered by firing one
+ * {@link VeinBreakCheckEvent} per remaining block (protection.fire-break-events, by default whenever no
+ * provider is registered). Those events are cancelled at MONITOR after their outcome was read, so jobs and
+ * logging listeners that skip cancelled events never count blocks that are only checked.
+ */
+public class ProtectionService implements Listener {
+
+    // Logging tag
+    private static final String LOG_TAG = "[VeinMiner] ";
+
+    private final VeinMinerPlugin plugin;
+    private final List<ProtectionProvider> providers;
+
+    // Set while break events for vein blocks are fired, so they don't trigger vein mining themselves
+    private boolean firingEvents = false;
+    // Outcome of the check event being fired, read at MONITOR before it is cancelled
+    private VeinBreakCheckEvent currentCheck;
+    private boolean currentAllowed;
+
+    /**
+     * When per-block break events are fired (protection.fire-break-events)
+     */
+    public enum BreakEvents {
+        // Only while no protection provider is registered
+        AUTO,
+        ALWAYS,
+        NEVER;
+
+        public static BreakEvents fromConfig(Object value) {
+            if (value instanceof Boolean) {
+                return (Boolean) value ? ALWAYS : NEVER;
+            }
+            String name = value == null ? "" : value.toString().toLowerCase();
+            switch (name) {
+                case "true":
+                case "always":
+                    return ALWAYS;
+                case "false":
+                case "never":
+                    return NEVER;
+                default:
+                    return AUTO;
+            }
+        }
+    }
+
+    public ProtectionService(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.providers = new CopyOnWriteArrayList<>();
+
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    public void register(ProtectionProvider provider) {
+        if (provider != null && !providers.contains(provider)) {
+            providers.add(provider);
+        }
+    }
+
+    public void unregister(ProtectionProvider provider) {
+        providers.remove(provider);
+    }
+
+    /**
+     * @return true while this service fires a BlockBreakEvent for a vein block
+     */
+    public boolean isFiringEvents() {
+        return firingEvents;
+    }
+
+    /**
+     * Record the protection outcome of a check event and cancel it for the listeners after this one
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBreakCheck(BlockBreakEvent event) {
+        if (event == currentCheck) {
+            currentCheck = null;
+            currentAllowed = !event.isCancelled();
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * Check which of the first blocks of a vein the player may break
+     * @param player The player mining the vein
+     * @param vein The vein, origin first
+     * @param count Number of positions from the front to check
+     * @param tool The tool in hand
+     * @param breakEvents When to fire per-block events for plugins without a provider
+     * @return Allowed bitmask indexed like the vein positions (the origin is always allowed)
+     */
+    public BitSet check(Player player, VeinResult vein, int count, Item tool, BreakEvents breakEvents) {
+        boolean fireBreakEvents = breakEvents == BreakEvents.ALWAYS || (breakEvents == BreakEvents.AUTO && providers.isEmpty());
+        BitSet allowed = new BitSet(count);
+        allowed.set(0, count);
+        if (count < 2 || (providers.isEmpty() && !fireBreakEvents)) {
+            return allowed;
+        }
+
+        Level level = vein.getLevel();
+        VeinPositions positions = vein.toPositions(count);
+
+        // PERFORMANCE: One bulk query per provider, the bounding box is computed once for all of them
+        VeinBounds bounds = null;
+        for (ProtectionProvider provider : providers) {
+            try {
+                if (bounds == null) {
+                    bounds = VeinBounds.of(positions);
+                }
+                if (!provider.filter(player, level, bounds, positions, allowed)) {
+                    for (int i = allowed.nextSetBit(1); i >= 0; i = allowed.nextSetBit(i + 1)) {
+                        if (!provider.canBreak(player, blockAt(level, positions.getPacked(i)))) {
+                            allowed.clear(i);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // SECURITY: A failing provider denies the rest of the vein instead of ignoring its protection
+                plugin.getLogger().warning(LOG_TAG + "Protection provider " + provider.getName() + " failed: " + e.getMessage());
+                allowed.clear(1, count);
+            }
+        }
+
+        // Fallback adapter: regular break events for protection plugins that don't register a provider
+        if (fireBreakEvents) {
+            firingEvents = true;
+            try {
+                for (int i = allowed.nextSetBit(1); i >= 0; i = allowed.nextSetBit(i + 1)) {
+                    VeinBreakCheckEvent event = new VeinBreakCheckEvent(player, blockAt(level, positions.getPacked(i)), tool);
+                    currentCheck = event;
+                    plugin.getServer().getPluginManager().callEvent(event);
+                    // onBreakCheck clears currentCheck; if it did not run, the event's own state decides
+                    boolean permitted = currentCheck == null ? currentAllowed : !event.isCancelled();
+                    if (!permitted) {
+                        allowed.clear(i);
+                    }
+                }
+            } finally {
+                firingEvents = false;
+                currentCheck = null;
+            }
+        }
+
+        return allowed;
+    }
+
+    private static Block blockAt(Level level, long packed) {
+        return level.getBlock(PackedPos.x(packed), PackedPos.y(packed), PackedPos.z(packed));
+    }
+}
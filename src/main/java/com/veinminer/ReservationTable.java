@@ -0,0 +1,149 @@
+package com.veinminer;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Positions currently claimed by vein jobs, so overlapping veins never break, drop or charge a block twice
+ * A job claims its blocks before breaking and releases them when it completes or is cancelled. The table is
+ * striped by level and chunk: a vein locks each stripe it touches once, and jobs in different areas never share a
+ * lock. Positions are kept per level, so jobs at the same coordinates of two worlds never conflict.
+ */
+final class ReservationTable {
+
+    // Power of two, a stripe is picked by the top bits of the mixed level id and chunk key
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    // Each stripe maps a level id to its claimed positions, the map is the stripe's lock
+    @SuppressWarnings("unchecked")
+    private final Int2ObjectOpenHashMap<LongOpenHashSet>[] stripes = new Int2ObjectOpenHashMap[STRIPES];
+    private final AtomicInteger held = new AtomicInteger();
+    private final VeinMetrics metrics;
+
+    ReservationTable(VeinMetrics metrics) {
+        this.metrics = metrics;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Int2ObjectOpenHashMap<>();
+        }
+    }
+
+    private static int stripeOf(int levelId, long packed) {
+        long key = PackedPos.chunkKeyOf(packed) ^ ((long) levelId << 48);
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS));
+    }
+
+    /**
+     * Claim the allowed blocks among the first positions of a vein
+     * Blocks already held by another job are cleared from the allowed mask.
+     * @param vein The vein, origin first
+     * @param count Number of positions from the front to claim
+     * @param allowed Positions to claim, updated in place
+     * @return Reservation to release once the job ends
+     */
+    Reservation claim(VeinResult vein, int count, BitSet allowed) {
+        int n = Math.min(count, vein.size());
+        int levelId = vein.getLevel().getId();
+
+        // Bucket the candidates by stripe so each stripe is locked once
+        int[] stripeStart = new int[STRIPES + 1];
+        int candidates = 0;
+        for (int i = allowed.nextSetBit(0); i >= 0 && i < n; i = allowed.nextSetBit(i + 1)) {
+            stripeStart[stripeOf(levelId, vein.getPosition(i)) + 1]++;
+            candidates++;
+        }
+        for (int s = 0; s < STRIPES; s++) {
+            stripeStart[s + 1] += stripeStart[s];
+        }
+        int[] fill = Arrays.copyOf(stripeStart, STRIPES);
+        int[] order = new int[candidates];
+        for (int i = allowed.nextSetBit(0); i >= 0 && i < n; i = allowed.nextSetBit(i + 1)) {
+            order[fill[stripeOf(levelId, vein.getPosition(i))]++] = i;
+        }
+
+        // Claimed positions stay grouped by stripe, which release relies on
+        long[] claimed = new long[candidates];
+        int claimedCount = 0;
+        int conflicts = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            if (stripeStart[s] == stripeStart[s + 1]) {
+                continue;
+            }
+            Int2ObjectOpenHashMap<LongOpenHashSet> stripe = stripes[s];
+            synchronized (stripe) {
+                LongOpenHashSet levelHeld = stripe.get(levelId);
+                if (levelHeld == null) {
+                    levelHeld = new LongOpenHashSet();
+                    stripe.put(levelId, levelHeld);
+                }
+                for (int j = stripeStart[s]; j < stripeStart[s + 1]; j++) {
+                    long pos = vein.getPosition(order[j]);
+                    if (levelHeld.add(pos)) {
+                        claimed[claimedCount++] = pos;
+                    } else {
+                        allowed.clear(order[j]);
+                        conflicts++;
+                    }
+                }
+            }
+        }
+
+        held.addAndGet(claimedCount);
+        metrics.recordReservation(claimedCount, conflicts);
+        return new Reservation(levelId, Arrays.copyOf(claimed, claimedCount));
+    }
+
+    /**
+     * @return Blocks currently reserved by running jobs
+     */
+    int getHeld() {
+        return held.get();
+    }
+
+    /**
+     * Blocks claimed by one vein job
+     */
+    final class Reservation {
+        private final int levelId;
+        private final long[] positions;
+        private final long claimedAt = System.nanoTime();
+        private boolean released;
+
+        private Reservation(int levelId, long[] positions) {
+            this.levelId = levelId;
+            this.positions = positions;
+        }
+
+        /**
+         * Give the blocks back, safe to call more than once
+         */
+        void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+
+            int i = 0;
+            while (i < positions.length) {
+                Int2ObjectOpenHashMap<LongOpenHashSet> stripe = stripes[stripeOf(levelId, positions[i])];
+                synchronized (stripe) {
+                    LongOpenHashSet levelHeld = stripe.get(levelId);
+                    // Positions of one stripe are adjacent, see claim
+                    do {
+                        levelHeld.remove(positions[i++]);
+                    } while (i < positions.length && stripes[stripeOf(levelId, positions[i])] == stripe);
+                    if (levelHeld.isEmpty()) {
+                        stripe.remove(levelId);
+                    }
+                }
+            }
+
+            held.addAndGet(-positions.length);
+            metrics.recordHold(System.nanoTime() - claimedAt);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.veinminer;
 import cn.nukkit.Player;
 import cn.nukkit.utils.Config;
 import cn.nukkit.utils.TextFormat;
+import com.veinminer.api.StatsWindow;
 
 import java.io.File;
 import java.util.*;
@@ -19,12 +20,21 @@ public class StatisticsTracker {
     // Logging tag
     private static final String LOG_TAG = "[VeinMiner] ";
     
+    // stats.yml key of the server-wide windows (player keys are UUIDs)
+    private static final String SERVER_KEY = "server";
+    
     private final VeinMinerPlugin plugin;
     private final Map<UUID, PlayerStats> playerStats;
     private final boolean enabled;
     private final boolean saveToFile;
     private volatile boolean saving = false;
     
+    // Rare ore rates of recent veins, alerts staff about likely x-ray
+    private final XrayDetector xrayDetector;
+    
+    // Blocks mined by everyone in the last hour, day and week
+    private final WindowCounters serverWindows = new WindowCounters();
+    
     // Milestone tracking
     private final Map<UUID, Set<Integer>> achievedMilestones;
     private final boolean milestonesEnabled;
@@ -34,6 +44,7 @@ public class StatisticsTracker {
         this.plugin = plugin;
         this.playerStats = new ConcurrentHashMap<>();
         this.achievedMilestones = new ConcurrentHashMap<>();
+        this.xrayDetector = new XrayDetector(plugin);
         
         Config config = plugin.getConfig();
         this.enabled = config.getBoolean("statistics.enabled", true);
@@ -55,8 +66,12 @@ public class StatisticsTracker {
      * Record a vein mining event
      * @param player The player who mined the vein
      * @param blockCount Number of blocks in the vein
+     * @param type Block type of the vein
      */
-    public void recordVeinMine(Player player, int blockCount) {
+    public void recordVeinMine(Player player, int blockCount, BlockType type) {
+        // Runs even with statistics disabled, it has its own switch
+        xrayDetector.record(player, blockCount, type);
+        
         if (!enabled) return;
         
         UUID uuid = player.getUniqueId();
@@ -70,6 +85,12 @@ public class StatisticsTracker {
         stats.addBlocks(blockCount);
         stats.updateLastMined();
         stats.updateLargestVein(blockCount);
+        // PERFORMANCE: One bucket increment per ring, windows roll over without scanning
+        long now = System.currentTimeMillis();
+        stats.getWindows().add(blockCount, now);
+        serverWindows.add(blockCount, now);
+        // PERFORMANCE: Indexed by the numeric type id, no map lookup or boxing
+        stats.getTypeBlocks().add(type.getId(), blockCount);
         
         // Check milestones (only check once per player session to prevent resending)
         if (milestonesEnabled) {
@@ -173,7 +194,7 @@ public class StatisticsTracker {
             return;
         }
         
-        Config config = plugin.getConfig();
+        VeinMinerSettings settings = plugin.getSettings();
         
         // Send congratulatory message
         player.sendMessage(TextFormat.GOLD + "" + TextFormat.BOLD + "═══════════════════════════════");
@@ -181,8 +202,8 @@ public class StatisticsTracker {
         player.sendMessage(TextFormat.YELLOW + "You've mined " + TextFormat.WHITE + milestone + TextFormat.YELLOW + " blocks with VeinMiner!");
         
         // Grant rewards if configured
-        if (config.exists("statistics.milestones.rewards." + milestone)) {
-            List<String> commands = config.getStringList("statistics.milestones.rewards." + milestone);
+        List<String> commands = settings.getMilestoneRewards(milestone);
+        if (!commands.isEmpty()) {
             int successfulCommands = 0;
             for (String command : commands) {
                 try {
@@ -211,7 +232,7 @@ public class StatisticsTracker {
         player.sendMessage(TextFormat.GOLD + "" + TextFormat.BOLD + "═══════════════════════════════");
         
         // Log milestone
-        if (plugin.getConfig().getBoolean("logging.enabled", true)) {
+        if (settings.isLoggingEnabled()) {
             plugin.getLogger().info(LOG_TAG + TextFormat.GREEN + "[Milestone] Player " + player.getName() + " reached " + milestone + " blocks mined!");
         }
     }
@@ -225,6 +246,61 @@ public class StatisticsTracker {
         return playerStats.getOrDefault(player.getUniqueId(), new PlayerStats(player.getName()));
     }
     
+    /**
+     * Safe to call from any thread
+     * @param uuid Player UUID
+     * @return Statistics of the player, or null if they never vein mined
+     */
+    public PlayerStats getStats(UUID uuid) {
+        return playerStats.get(uuid);
+    }
+    
+    /**
+     * @param window The window
+     * @return Blocks vein mined by all players within the window
+     */
+    public long getServerBlocks(StatsWindow window) {
+        return serverWindows.get(window, System.currentTimeMillis());
+    }
+    
+    /**
+     * Rank players by blocks vein mined within a window
+     * @param window The window
+     * @param limit Maximum number of players
+     * @return Player UUID to blocks, highest first, only players with blocks in the window
+     */
+    public LinkedHashMap<UUID, Long> getTopPlayers(StatsWindow window, int limit) {
+        long now = System.currentTimeMillis();
+        UUID[] ids = new UUID[Math.max(0, limit)];
+        long[] blocks = new long[ids.length];
+        int found = 0;
+        for (Map.Entry<UUID, PlayerStats> entry : playerStats.entrySet()) {
+            long count = entry.getValue().getWindows().get(window, now);
+            if (count <= 0) {
+                continue;
+            }
+            // Insertion into the short result list
+            int pos = Math.min(found, ids.length);
+            while (pos > 0 && blocks[pos - 1] < count) {
+                if (pos < ids.length) {
+                    ids[pos] = ids[pos - 1];
+                    blocks[pos] = blocks[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < ids.length) {
+                ids[pos] = entry.getKey();
+                blocks[pos] = count;
+                found = Math.min(found + 1, ids.length);
+            }
+        }
+        LinkedHashMap<UUID, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < found; i++) {
+            result.put(ids[i], blocks[i]);
+        }
+        return result;
+    }
+    
     /**
      * Save statistics to file asynchronously
      */
@@ -266,6 +342,11 @@ public class StatisticsTracker {
         try {
             File statsFile = new File(plugin.getDataFolder(), "stats.yml");
             Config statsConfig = new Config(statsFile, Config.YAML);
+            long now = System.currentTimeMillis();
+            
+            Map<String, Object> serverData = new HashMap<>();
+            putWindows(serverData, serverWindows, now);
+            statsConfig.set(SERVER_KEY, serverData);
             
             for (Map.Entry<UUID, PlayerStats> entry : statsSnapshot.entrySet()) {
                 String uuidStr = entry.getKey().toString();
@@ -278,6 +359,19 @@ public class StatisticsTracker {
                 data.put("largestVein", stats.getLargestVein());
                 data.put("lastMined", stats.getLastMined());
                 
+                // Type ids are handed out per server run, so the breakdown is stored by type name
+                long[] typeBlocks = stats.getTypeBlocks().toArray();
+                Map<String, Object> blocksByType = new LinkedHashMap<>();
+                for (int typeId = 0; typeId < typeBlocks.length; typeId++) {
+                    if (typeBlocks[typeId] > 0) {
+                        blocksByType.put(BlockRegistry.nameOf(typeId), typeBlocks[typeId]);
+                    }
+                }
+                if (!blocksByType.isEmpty()) {
+                    data.put("blocksByType", blocksByType);
+                }
+                putWindows(data, stats.getWindows(), now);
+                
                 // STABILITY: Save achieved milestones with proper synchronization
                 Set<Integer> milestones = achievedMilestones.get(entry.getKey());
                 if (milestones != null && !milestones.isEmpty()) {
@@ -300,6 +394,28 @@ public class StatisticsTracker {
         }
     }
     
+    /**
+     * Store the live window buckets as two short strings
+     */
+    private static void putWindows(Map<String, Object> data, WindowCounters windows, long now) {
+        String minutes = windows.encodeMinutes(now);
+        String hours = windows.encodeHours(now);
+        if (!minutes.isEmpty()) {
+            data.put("windowMinutes", minutes);
+        }
+        if (!hours.isEmpty()) {
+            data.put("windowHours", hours);
+        }
+    }
+    
+    private static void loadWindows(Map<String, Object> data, WindowCounters windows, long now) {
+        Object minutes = data.get("windowMinutes");
+        Object hours = data.get("windowHours");
+        if (minutes != null || hours != null) {
+            windows.decode(minutes == null ? null : String.valueOf(minutes), hours == null ? null : String.valueOf(hours), now);
+        }
+    }
+    
     /**
      * Load statistics from file
      */
@@ -309,8 +425,13 @@ public class StatisticsTracker {
         
         try {
             Config statsConfig = new Config(statsFile, Config.YAML);
+            long now = System.currentTimeMillis();
             
             for (String uuidStr : statsConfig.getKeys(false)) {
+                if (SERVER_KEY.equals(uuidStr)) {
+                    loadWindows(statsConfig.getSection(uuidStr).getAllMap(), serverWindows, now);
+                    continue;
+                }
                 try {
                     UUID uuid = UUID.fromString(uuidStr);
                     Map<String, Object> data = statsConfig.getSection(uuidStr).getAllMap();
@@ -321,6 +442,19 @@ public class StatisticsTracker {
                     stats.setLargestVein(((Number) data.getOrDefault("largestVein", 0)).intValue());
                     stats.setLastMined(((Number) data.getOrDefault("lastMined", 0L)).longValue());
                     
+                    loadWindows(data, stats.getWindows(), now);
+                    
+                    // Types that are no longer configured keep their counts under a reserved id
+                    Object blocksByType = data.get("blocksByType");
+                    if (blocksByType instanceof Map) {
+                        for (Map.Entry<?, ?> typeEntry : ((Map<?, ?>) blocksByType).entrySet()) {
+                            if (typeEntry.getValue() instanceof Number) {
+                                stats.getTypeBlocks().add(BlockRegistry.intern(String.valueOf(typeEntry.getKey())),
+                                    ((Number) typeEntry.getValue()).longValue());
+                            }
+                        }
+                    }
+                    
                     playerStats.put(uuid, stats);
                     
                     // Load achieved milestones
@@ -345,6 +479,17 @@ public class StatisticsTracker {
         }
     }
     
+    /**
+     * @param typeName A type name such as minecraft:iron_ore
+     * @return The name without the default namespace
+     */
+    public static String formatTypeName(String typeName) {
+        if (typeName == null) {
+            return "unknown";
+        }
+        return typeName.startsWith("minecraft:") ? typeName.substring("minecraft:".length()) : typeName;
+    }
+    
     /**
      * Thread-safe player statistics using atomic operations
      */
@@ -354,6 +499,8 @@ public class StatisticsTracker {
         private final AtomicInteger totalBlocks;
         private final AtomicInteger largestVein;
         private final AtomicLong lastMined;
+        private final TypeCounters typeBlocks = new TypeCounters();
+        private final WindowCounters windows = new WindowCounters();
         
         public PlayerStats(String playerName) {
             this.playerName = playerName;
@@ -401,6 +548,20 @@ public class StatisticsTracker {
             return lastMined.get();
         }
         
+        /**
+         * @return Blocks mined per block type
+         */
+        public TypeCounters getTypeBlocks() {
+            return typeBlocks;
+        }
+        
+        /**
+         * @return Blocks mined in the last hour, day and week
+         */
+        public WindowCounters getWindows() {
+            return windows;
+        }
+        
         // Setters (for loading from file)
         public void setTotalVeins(int value) {
             totalVeins.set(value);
@@ -443,6 +604,23 @@ public class StatisticsTracker {
                 }
             }
             
+            long now = System.currentTimeMillis();
+            sb.append("\n").append(TextFormat.YELLOW).append("Recent Blocks: ").append(TextFormat.WHITE)
+                .append(windows.get(StatsWindow.HOUR, now)).append(TextFormat.GRAY).append(" last hour, ").append(TextFormat.WHITE)
+                .append(windows.get(StatsWindow.DAY, now)).append(TextFormat.GRAY).append(" today, ").append(TextFormat.WHITE)
+                .append(windows.get(StatsWindow.WEEK, now)).append(TextFormat.GRAY).append(" this week");
+            
+            int[] top = typeBlocks.top(3);
+            if (top.length > 0) {
+                sb.append("\n").append(TextFormat.YELLOW).append("Most Mined: ").append(TextFormat.WHITE);
+                for (int i = 0; i < top.length; i++) {
+                    if (i > 0) {
+                        sb.append(TextFormat.GRAY).append(", ").append(TextFormat.WHITE);
+                    }
+                    sb.append(formatTypeName(BlockRegistry.nameOf(top[i]))).append(" (").append(typeBlocks.get(top[i])).append(")");
+                }
+            }
+            
             return sb.toString();
         }
     }
@@ -0,0 +1,56 @@
+package com.veinminer;
+
+import cn.nukkit.item.Item;
+
+/**
+ * Tool class a vein block must be mined with
+ * Checked with the item's own tool type instead of its identifier, so custom tools are recognized
+ */
+public enum ToolClass {
+    PICKAXE,
+    AXE,
+    SHOVEL,
+    HOE,
+    SHEARS,
+    SWORD,
+    ANY;
+
+    /**
+     * @param tool The tool in hand
+     * @return true if the tool satisfies this requirement
+     */
+    public boolean matches(Item tool) {
+        switch (this) {
+            case PICKAXE:
+                return tool.isPickaxe();
+            case AXE:
+                return tool.isAxe();
+            case SHOVEL:
+                return tool.isShovel();
+            case HOE:
+                return tool.isHoe();
+            case SHEARS:
+                return tool.isShears();
+            case SWORD:
+                return tool.isSword();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Parse a tool class from config
+     * @param name Config value
+     * @return Parsed tool class, or null for unknown values
+     */
+    public static ToolClass fromConfig(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.veinminer;
+
+import cn.nukkit.item.Item;
+import cn.nukkit.item.enchantment.Enchantment;
+
+import java.util.SplittableRandom;
+
+/**
+ * Everything the tool contributes to a vein, computed once before any block is broken
+ * Durability cost is fractional (the remainder carries over between blocks, so a multiplier of 0.5 costs one point
+ * every second block) and every point may be absorbed by Unbreaking with the vanilla 1 / (level + 1) chance.
+ * The cumulative damage is precomputed per mined block, so the break loop only counts blocks and the
+ * final damage is applied to the item once.
+ */
+public final class ToolOutcome {
+
+    private final int maxDurability;
+    private final int startDamage;
+    // damageAfter[n] = tool damage after n blocks were mined
+    private final int[] damageAfter;
+    private final int minableBlocks;
+    private final int fortuneLevel;
+    private final boolean silkTouch;
+    private final int unbreakingLevel;
+
+    private ToolOutcome(int maxDurability, int startDamage, int[] damageAfter, int minableBlocks,
+                        int fortuneLevel, boolean silkTouch, int unbreakingLevel) {
+        this.maxDurability = maxDurability;
+        this.startDamage = startDamage;
+        this.damageAfter = damageAfter;
+        this.minableBlocks = minableBlocks;
+        this.fortuneLevel = fortuneLevel;
+        this.silkTouch = silkTouch;
+        this.unbreakingLevel = unbreakingLevel;
+    }
+
+    /**
+     * Compute the outcome of mining up to the given number of blocks
+     * @param tool The tool in hand
+     * @param blocks Maximum number of blocks that will be mined
+     * @param multiplier Durability points per block (fractional)
+     * @param durabilityEnabled Whether vein mining damages tools at all
+     * @param random Per-vein random source for Unbreaking
+     * @return Precomputed outcome
+     */
+    public static ToolOutcome compute(Item tool, int blocks, double multiplier, boolean durabilityEnabled, SplittableRandom random) {
+        int fortune = tool.getEnchantmentLevel(Enchantment.ID_FORTUNE_DIGGING);
+        boolean silk = tool.getEnchantmentLevel(Enchantment.ID_SILK_TOUCH) > 0;
+        int unbreaking = tool.getEnchantmentLevel(Enchantment.ID_DURABILITY);
+
+        int maxDurability = tool.getMaxDurability();
+        if (!durabilityEnabled || maxDurability <= 0 || tool.isUnbreakable() || multiplier <= 0) {
+            return new ToolOutcome(0, tool.getDamage(), null, blocks, fortune, silk, unbreaking);
+        }
+
+        int damage = tool.getDamage();
+        int[] damageAfter = new int[blocks + 1];
+        damageAfter[0] = damage;
+        double carry = 0;
+        int minable = blocks;
+        for (int n = 1; n <= blocks; n++) {
+            carry += multiplier;
+            int points = (int) carry;
+            carry -= points;
+            for (int p = 0; p < points; p++) {
+                // Unbreaking: each point is applied with a 1 / (level + 1) chance
+                if (unbreaking <= 0 || random.nextInt(unbreaking + 1) == 0) {
+                    damage++;
+                }
+            }
+            damageAfter[n] = damage;
+            if (damage >= maxDurability) {
+                // The block that wears the tool out is still mined, then the tool breaks
+                minable = n;
+                break;
+            }
+        }
+        return new ToolOutcome(maxDurability, tool.getDamage(), damageAfter, minable, fortune, silk, unbreaking);
+    }
+
+    /**
+     * @return true if mining changes the tool's damage
+     */
+    public boolean usesDurability() {
+        return damageAfter != null;
+    }
+
+    /**
+     * @return Number of blocks that can be mined before the tool breaks
+     */
+    public int getMinableBlocks() {
+        return minableBlocks;
+    }
+
+    /**
+     * @param mined Number of blocks actually mined
+     * @return Tool damage after mining them
+     */
+    public int getDamageAfter(int mined) {
+        if (damageAfter == null) {
+            return startDamage;
+        }
+        return damageAfter[Math.min(mined, minableBlocks)];
+    }
+
+    /**
+     * @param mined Number of blocks actually mined
+     * @return true if the tool breaks after mining them
+     */
+    public boolean breaksAfter(int mined) {
+        return damageAfter != null && getDamageAfter(mined) >= maxDurability;
+    }
+
+    public int getFortuneLevel() {
+        return fortuneLevel;
+    }
+
+    public boolean hasSilkTouch() {
+        return silkTouch;
+    }
+
+    public int getUnbreakingLevel() {
+        return unbreakingLevel;
+    }
+}
@@ -0,0 +1,133 @@
+package com.veinminer;
+
+import java.util.Arrays;
+
+/**
+ * Blocks mined per block type, keyed by the interned type id ({@link BlockType#getId()})
+ * Most players mine a handful of types, which are kept as a short sparse list of id and count arrays.
+ * Once more than SPARSE_LIMIT types are used the counts move to a dense array indexed by type id.
+ * Adding never allocates a map entry or boxes a value.
+ */
+public final class TypeCounters {
+
+    private static final int SPARSE_LIMIT = 8;
+
+    // Sparse form, used while dense is null
+    private int[] ids = new int[2];
+    private long[] counts = new long[2];
+    private int size;
+
+    private long[] dense;
+
+    /**
+     * @param typeId Type id
+     * @param amount Blocks to add
+     */
+    public synchronized void add(int typeId, long amount) {
+        if (typeId < 0) {
+            return;
+        }
+        if (dense != null) {
+            if (typeId >= dense.length) {
+                dense = Arrays.copyOf(dense, Math.max(typeId + 1, BlockRegistry.typeIdCount()));
+            }
+            dense[typeId] += amount;
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == typeId) {
+                counts[i] += amount;
+                return;
+            }
+        }
+        if (size == SPARSE_LIMIT) {
+            toDense();
+            add(typeId, amount);
+            return;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        ids[size] = typeId;
+        counts[size] = amount;
+        size++;
+    }
+
+    private void toDense() {
+        int length = BlockRegistry.typeIdCount();
+        for (int i = 0; i < size; i++) {
+            length = Math.max(length, ids[i] + 1);
+        }
+        dense = new long[length];
+        for (int i = 0; i < size; i++) {
+            dense[ids[i]] = counts[i];
+        }
+        ids = null;
+        counts = null;
+        size = 0;
+    }
+
+    /**
+     * @param typeId Type id
+     * @return Blocks mined of the type
+     */
+    public synchronized long get(int typeId) {
+        if (dense != null) {
+            return typeId >= 0 && typeId < dense.length ? dense[typeId] : 0;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == typeId) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return Copy of all counts indexed by type id (zero for types never mined)
+     */
+    public synchronized long[] toArray() {
+        if (dense != null) {
+            return dense.clone();
+        }
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            length = Math.max(length, ids[i] + 1);
+        }
+        long[] result = new long[length];
+        for (int i = 0; i < size; i++) {
+            result[ids[i]] = counts[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param limit Maximum number of types
+     * @return Type ids with the most blocks, highest first
+     */
+    public int[] top(int limit) {
+        long[] all = toArray();
+        int[] best = new int[Math.max(0, limit)];
+        int found = 0;
+        for (int typeId = 0; typeId < all.length; typeId++) {
+            if (all[typeId] <= 0) {
+                continue;
+            }
+            // Insertion into the short result list
+            int pos = Math.min(found, best.length);
+            while (pos > 0 && all[best[pos - 1]] < all[typeId]) {
+                if (pos < best.length) {
+                    best[pos] = best[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < best.length) {
+                best[pos] = typeId;
+                found = Math.min(found + 1, best.length);
+            }
+        }
+        return Arrays.copyOf(best, found);
+    }
+}
@@ -0,0 +1,662 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockState;
+import cn.nukkit.level.Level;
+import cn.nukkit.math.Vector3;
+import cn.nukkit.registry.Registries;
+import cn.nukkit.scheduler.AsyncTask;
+import cn.nukkit.scheduler.TaskHandler;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Journal of mined veins so admins can roll back griefing with /vm undo
+ * Each vein is one compact entry (player, time, world, a palette of block state hashes and per-axis
+ * varint deltas between positions, usually 4 bytes per block). Entries are encoded on the main thread,
+ * queued and appended write-behind to a fixed-size ring buffer file: the oldest veins are overwritten,
+ * so the file never grows past the configured size. File access happens off the main thread only.
+ */
+public class UndoJournal {
+
+    // Logging tag
+    private static final String LOG_TAG = "[VeinMiner] ";
+
+    private static final String FILE_NAME = "undo.journal";
+    private static final int MAGIC = 0x564D554A; // "VMUJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int FLUSH_INTERVAL_TICKS = 20;
+
+    // Entry layout: int length, byte flags, long timestamp, then the encoded vein
+    private static final int ENTRY_HEADER_SIZE = 13;
+    private static final int FLAG_UNDONE = 1;
+    // Written where the next entry would not fit before the end of the ring
+    private static final int WRAP_MARKER = -1;
+
+    private final VeinMinerPlugin plugin;
+    private final File file;
+    private final long capacity;
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private TaskHandler flushTask;
+
+    // Guarded by this, only touched from async tasks and shutdown
+    private FileChannel channel;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private long end;
+
+    // Published for status output without taking the lock
+    private volatile int entryCount;
+    private volatile long usedBytes;
+    private volatile long oversized;
+
+    /**
+     * @param plugin The plugin
+     * @param maxBytes Hard cap of the journal file
+     */
+    public UndoJournal(VeinMinerPlugin plugin, long maxBytes) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), FILE_NAME);
+        this.capacity = Math.max(4096, maxBytes - HEADER_SIZE);
+    }
+
+    /**
+     * Open the journal asynchronously and start the write-behind flush task
+     * With undo disabled the file is not touched; it is created by the first flush once a reload enables it.
+     */
+    public void start() {
+        if (plugin.getSettings().isUndoEnabled()) {
+            plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+                @Override
+                public void onRun() {
+                    load();
+                }
+            });
+        }
+        flushTask = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, () -> {
+            if (!pending.isEmpty()) {
+                plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+                    @Override
+                    public void onRun() {
+                        flushPending();
+                    }
+                });
+            }
+        }, FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    /**
+     * Write queued entries and close the file synchronously (plugin shutdown)
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+        flushPending();
+        synchronized (this) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    plugin.getLogger().warning(LOG_TAG + "Failed to close " + FILE_NAME + ": " + e.getMessage());
+                }
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Record a mined vein (main thread)
+     * PERFORMANCE: Only encodes into a byte array and queues it, the file is written by the next flush
+     * @param player The player who mined the vein
+     * @param level The world of the vein
+     * @param mined Positions that were broken, in order
+     * @param states Block state hash of each broken position
+     */
+    public void record(Player player, Level level, LongArrayList mined, int[] states) {
+        int count = mined.size();
+        if (count == 0) {
+            return;
+        }
+
+        // Veins hold one or two states, a linear palette avoids any map or boxing
+        int[] palette = new int[4];
+        int paletteSize = 0;
+        int[] paletteIndex = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = 0;
+            while (index < paletteSize && palette[index] != states[i]) {
+                index++;
+            }
+            if (index == paletteSize) {
+                if (paletteSize == palette.length) {
+                    palette = Arrays.copyOf(palette, paletteSize * 2);
+                }
+                palette[paletteSize++] = states[i];
+            }
+            paletteIndex[i] = index;
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(ENTRY_HEADER_SIZE + 32 + count * 4);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // Length, filled in below
+            out.writeByte(0);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(player.getName());
+            out.writeUTF(level.getFolderName());
+            writeVarInt(out, count);
+            writeVarInt(out, paletteSize);
+            for (int i = 0; i < paletteSize; i++) {
+                out.writeInt(palette[i]);
+            }
+            // Vein blocks are neighbours, so per-axis deltas mostly fit one byte each
+            int x = 0;
+            int y = 0;
+            int z = 0;
+            for (int i = 0; i < count; i++) {
+                long pos = mined.getLong(i);
+                writeVarInt(out, zigZag(PackedPos.x(pos) - x));
+                writeVarInt(out, zigZag(PackedPos.y(pos) - y));
+                writeVarInt(out, zigZag(PackedPos.z(pos) - z));
+                writeVarInt(out, paletteIndex[i]);
+                x = PackedPos.x(pos);
+                y = PackedPos.y(pos);
+                z = PackedPos.z(pos);
+            }
+            out.flush();
+            byte[] entry = bytes.toByteArray();
+            ByteBuffer.wrap(entry).putInt(0, entry.length);
+            pending.add(entry);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            plugin.getLogger().warning(LOG_TAG + "Failed to journal vein: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restore the most recent veins of a player that were not undone yet
+     * Entries are read off the main thread; blocks are placed back on the main thread within a per-tick
+     * budget and only where the position is still air, so nothing built since is overwritten.
+     * A vein is marked undone in the file only once it has been restored, so a restart mid-undo loses nothing.
+     * @param playerName Name of the player whose veins to restore
+     * @param veins Number of most recent veins
+     * @param blocksPerTick Blocks restored per tick
+     * @param listener Receives progress on the main thread
+     */
+    public void undo(String playerName, int veins, int blocksPerTick, UndoListener listener) {
+        plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+            @Override
+            public void onRun() {
+                // Include veins mined since the last flush
+                flushPending();
+                List<Vein> loaded = readLatest(playerName, veins);
+                plugin.getServer().getScheduler().scheduleTask(plugin, () -> startRestore(loaded, blocksPerTick, listener));
+            }
+        });
+    }
+
+    private void startRestore(List<Vein> veins, int blocksPerTick, UndoListener listener) {
+        int blocks = 0;
+        for (Vein vein : veins) {
+            blocks += vein.positions.length;
+        }
+        listener.onLoaded(veins.size(), blocks);
+        if (veins.isEmpty()) {
+            listener.onFinished(0, 0);
+            return;
+        }
+        RestoreJob job = new RestoreJob(veins, Math.max(1, blocksPerTick), listener);
+        job.task = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, job, 1, 1);
+    }
+
+    /**
+     * @return Veins currently kept in the journal (0 until it was first written)
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return Bytes of the journal used by kept veins
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return Veins not journaled because a single entry would take more than half the journal
+     */
+    public long getOversizedVeins() {
+        return oversized;
+    }
+
+    public long getCapacityBytes() {
+        return HEADER_SIZE + capacity;
+    }
+
+    private synchronized void load() {
+        try {
+            open();
+        } catch (IOException e) {
+            plugin.getLogger().warning(LOG_TAG + "Failed to open " + FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append all queued entries to the ring
+     */
+    private synchronized void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            open();
+            byte[] entry;
+            while ((entry = pending.poll()) != null) {
+                append(entry);
+            }
+            writeHeader();
+        } catch (IOException e) {
+            plugin.getLogger().warning(LOG_TAG + "Failed to write " + FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    private void append(byte[] entry) throws IOException {
+        long length = entry.length;
+        // One oversized vein must not wipe the whole history
+        if (length > capacity / 2) {
+            oversized++;
+            return;
+        }
+
+        // Entries never wrap around the end of the ring
+        if (end + length > capacity) {
+            evict(end, capacity);
+            if (capacity - end >= Integer.BYTES) {
+                writeFully(ByteBuffer.allocate(Integer.BYTES).putInt(0, WRAP_MARKER), HEADER_SIZE + end);
+            }
+            end = 0;
+        }
+        evict(end, end + length);
+        writeFully(ByteBuffer.wrap(entry), HEADER_SIZE + end);
+        entries.addLast(Entry.parse(entry, end));
+        usedBytes += length;
+        end += length;
+    }
+
+    /**
+     * Forget the oldest entries overlapping the region about to be overwritten
+     */
+    private void evict(long from, long to) {
+        while (!entries.isEmpty()) {
+            Entry oldest = entries.peekFirst();
+            if (oldest.offset + oldest.length <= from || oldest.offset >= to) {
+                return;
+            }
+            entries.removeFirst();
+            usedBytes -= oldest.length;
+        }
+    }
+
+    private List<Vein> readLatest(String playerName, int veins) {
+        List<Vein> result = new ArrayList<>();
+        synchronized (this) {
+            // Never create the journal just to find it empty (undo disabled)
+            if (channel == null && !file.exists()) {
+                return result;
+            }
+            try {
+                open();
+                Iterator<Entry> newestFirst = entries.descendingIterator();
+                while (newestFirst.hasNext() && result.size() < veins) {
+                    Entry entry = newestFirst.next();
+                    if (entry.undone || entry.restoring || !entry.player.equalsIgnoreCase(playerName)) {
+                        continue;
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                    readFully(buffer, HEADER_SIZE + entry.offset);
+                    result.add(Vein.decode(buffer.array(), entry));
+
+                    // Claimed in memory only so a second undo does not place the same blocks again
+                    entry.restoring = true;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning(LOG_TAG + "Failed to read " + FILE_NAME + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Settle the claim of a vein once its restore finished or was given up (main thread)
+     * PERFORMANCE: The flag is written by an async task, the main thread never waits for the file
+     * @param entry The journal entry of the vein
+     * @param restored true to mark it undone on disk, false to release it for a later undo
+     */
+    private void finishRestore(Entry entry, boolean restored) {
+        plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+            @Override
+            public void onRun() {
+                markUndone(entry, restored);
+            }
+        });
+    }
+
+    private synchronized void markUndone(Entry entry, boolean restored) {
+        entry.restoring = false;
+        // The ring may have overwritten the entry while its blocks were placed back
+        if (!restored || channel == null || !entries.contains(entry)) {
+            return;
+        }
+        entry.undone = true;
+        try {
+            writeFully(ByteBuffer.wrap(new byte[]{FLAG_UNDONE}), HEADER_SIZE + entry.offset + Integer.BYTES);
+        } catch (IOException e) {
+            plugin.getLogger().warning(LOG_TAG + "Failed to write " + FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open the file and rebuild the entry list from the header, starting a new journal if it is unusable
+     */
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        file.getParentFile().mkdirs();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        entries.clear();
+        end = 0;
+        usedBytes = 0;
+        if (channel.size() < HEADER_SIZE) {
+            reset();
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getLong(8) != capacity) {
+            // Unknown file or a changed size limit, the old history can't be mapped onto the new ring
+            plugin.getLogger().warning(LOG_TAG + "Starting a new " + FILE_NAME + " (unsupported format or max-size changed)");
+            reset();
+            return;
+        }
+        long start = header.getLong(16);
+        int count = header.getInt(32);
+
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        long pos = start;
+        for (int i = 0; i < count; i++) {
+            int length = pos + Integer.BYTES > capacity ? WRAP_MARKER : readInt(lengthBuffer, pos);
+            if (length == WRAP_MARKER) {
+                pos = 0;
+                length = readInt(lengthBuffer, pos);
+            }
+            if (length < ENTRY_HEADER_SIZE || pos + length > capacity) {
+                plugin.getLogger().warning(LOG_TAG + FILE_NAME + " is damaged, kept " + entries.size() + " veins");
+                break;
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            readFully(bytes, HEADER_SIZE + pos);
+            entries.addLast(Entry.parse(bytes.array(), pos));
+            usedBytes += length;
+            pos += length;
+        }
+        // Writing continues after the last intact entry
+        end = entries.isEmpty() ? 0 : pos;
+        entryCount = entries.size();
+    }
+
+    private int readInt(ByteBuffer buffer, long pos) throws IOException {
+        buffer.clear();
+        readFully(buffer, HEADER_SIZE + pos);
+        return buffer.getInt(0);
+    }
+
+    private void reset() throws IOException {
+        channel.truncate(0);
+        entries.clear();
+        end = 0;
+        usedBytes = 0;
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(8, capacity);
+        header.putLong(16, entries.isEmpty() ? end : entries.peekFirst().offset);
+        header.putLong(24, end);
+        header.putInt(32, entries.size());
+        writeFully(header, 0);
+        entryCount = entries.size();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                // Short header reads near the end of a fresh file
+                return;
+            }
+            position += read;
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Receives undo progress on the main thread
+     */
+    public interface UndoListener {
+        /**
+         * @param veins Veins found for the player
+         * @param blocks Blocks they contain
+         */
+        void onLoaded(int veins, int blocks);
+
+        /**
+         * @param restored Blocks placed back
+         * @param skipped Blocks left alone because the position is no longer air (or the world is gone)
+         */
+        void onFinished(int restored, int skipped);
+    }
+
+    /**
+     * Location and summary of one journal entry
+     */
+    private static final class Entry {
+        private final long offset;
+        private final int length;
+        private final String player;
+        private boolean undone;
+        // Claimed by a running undo, not written to the file
+        private boolean restoring;
+
+        private Entry(long offset, int length, String player, boolean undone) {
+            this.offset = offset;
+            this.length = length;
+            this.player = player;
+            this.undone = undone;
+        }
+
+        static Entry parse(byte[] bytes, long offset) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            int length = in.readInt();
+            int flags = in.readUnsignedByte();
+            in.readLong();
+            return new Entry(offset, length, in.readUTF(), (flags & FLAG_UNDONE) != 0);
+        }
+    }
+
+    /**
+     * Decoded vein to restore
+     */
+    private static final class Vein {
+        private final Entry entry;
+        private final String levelName;
+        private final long[] positions;
+        private final int[] states;
+
+        private Vein(Entry entry, String levelName, long[] positions, int[] states) {
+            this.entry = entry;
+            this.levelName = levelName;
+            this.positions = positions;
+            this.states = states;
+        }
+
+        static Vein decode(byte[] bytes, Entry entry) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.skipBytes(ENTRY_HEADER_SIZE);
+            in.readUTF();
+            String levelName = in.readUTF();
+            int count = readVarInt(in);
+            int[] palette = new int[readVarInt(in)];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = in.readInt();
+            }
+            long[] positions = new long[count];
+            int[] states = new int[count];
+            int x = 0;
+            int y = 0;
+            int z = 0;
+            for (int i = 0; i < count; i++) {
+                x += unZigZag(readVarInt(in));
+                y += unZigZag(readVarInt(in));
+                z += unZigZag(readVarInt(in));
+                positions[i] = PackedPos.pack(x, y, z);
+                states[i] = palette[readVarInt(in)];
+            }
+            return new Vein(entry, levelName, positions, states);
+        }
+    }
+
+    /**
+     * Places the journaled blocks back over several ticks
+     */
+    private final class RestoreJob implements Runnable {
+        private final List<Vein> veins;
+        private final int blocksPerTick;
+        private final UndoListener listener;
+        private TaskHandler task;
+        private int veinIndex;
+        private int blockIndex;
+        private int restored;
+        private int skipped;
+
+        RestoreJob(List<Vein> veins, int blocksPerTick, UndoListener listener) {
+            this.veins = veins;
+            this.blocksPerTick = blocksPerTick;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            int budget = blocksPerTick;
+            while (budget > 0 && veinIndex < veins.size()) {
+                Vein vein = veins.get(veinIndex);
+                Level level = plugin.getServer().getLevelByName(vein.levelName);
+                if (level == null) {
+                    // Left for a later undo once the world is loaded again; restored blocks are no longer air then
+                    skipped += vein.positions.length - blockIndex;
+                    finishRestore(vein.entry, false);
+                    veinIndex++;
+                    blockIndex = 0;
+                    continue;
+                }
+                while (budget > 0 && blockIndex < vein.positions.length) {
+                    restore(level, vein.positions[blockIndex], vein.states[blockIndex]);
+                    blockIndex++;
+                    budget--;
+                }
+                if (blockIndex == vein.positions.length) {
+                    finishRestore(vein.entry, true);
+                    veinIndex++;
+                    blockIndex = 0;
+                }
+            }
+
+            if (veinIndex == veins.size()) {
+                task.cancel();
+                listener.onFinished(restored, skipped);
+            }
+        }
+
+        private void restore(Level level, long pos, int stateHash) {
+            int x = PackedPos.x(pos);
+            int y = PackedPos.y(pos);
+            int z = PackedPos.z(pos);
+            try {
+                Block current = level.getBlock(x, y, z);
+                BlockState state = Registries.BLOCKSTATE.get(stateHash);
+                // Never overwrite anything placed since the vein was mined
+                if (current == null || !current.isAir() || state == null) {
+                    skipped++;
+                    return;
+                }
+                Block block = Block.get(state);
+                if (level.setBlock(new Vector3(x, y, z), block, true, true)) {
+                    restored++;
+                    plugin.getOreIndex().onBlockAdded(level, x, y, z, block);
+                } else {
+                    skipped++;
+                }
+            } catch (Exception e) {
+                skipped++;
+            }
+        }
+    }
+}
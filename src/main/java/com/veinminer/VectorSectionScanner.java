@@ -0,0 +1,61 @@
+package com.veinminer;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of {@link SectionScanner#scan}: compares a full vector of type ids per step
+ * Vein blocks are sparse, so lanes without a match are skipped with one mask test; matching lanes pick their bit
+ * from a weight vector (1 << lane) that is OR-reduced into the bitset word. This avoids VectorMask.toLong,
+ * which is not intrinsified on every JDK/CPU combination.
+ * Only loaded through {@link SectionScanner} when the jdk.incubator.vector module is available at runtime.
+ */
+final class VectorSectionScanner implements SectionScanner.Kernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final IntVector ZERO = IntVector.zero(SPECIES);
+    private static final IntVector WEIGHTS = laneWeights();
+
+    VectorSectionScanner() {
+        // Lane bits are collected in an int and packed into 64 bit words, so the lane count has to divide 64 and fit 32 bits
+        int lanes = SPECIES.length();
+        if (lanes > Integer.SIZE || Long.SIZE % lanes != 0) {
+            throw new IllegalStateException("Unsupported vector width: " + lanes + " lanes");
+        }
+    }
+
+    @Override
+    public int scan(int[] ids, int typeId, long[] out) {
+        int lanes = SPECIES.length();
+        int count = 0;
+        for (int word = 0; word < SectionScanner.WORDS; word++) {
+            int base = word << 6;
+            long bits = 0;
+            for (int lane = 0; lane < Long.SIZE; lane += lanes) {
+                VectorMask<Integer> match = IntVector.fromArray(SPECIES, ids, base + lane).eq(typeId);
+                if (match.anyTrue()) {
+                    int laneBits = ZERO.blend(WEIGHTS, match).reduceLanes(VectorOperators.OR);
+                    bits |= (laneBits & 0xFFFFFFFFL) << lane;
+                }
+            }
+            out[word] = bits;
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    private static IntVector laneWeights() {
+        int[] weights = new int[SPECIES.length()];
+        for (int lane = 0; lane < weights.length; lane++) {
+            weights[lane] = 1 << lane;
+        }
+        return IntVector.fromArray(SPECIES, weights, 0);
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+}
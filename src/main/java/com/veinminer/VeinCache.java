@@ -0,0 +1,243 @@
+package com.veinminer;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.IChunk;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Short-lived cache of recently computed veins
+ * Entries are indexed by every member position so re-breaking any block of a cached vein reuses the search.
+ * An entry is dropped when its TTL expires or any chunk it touches reports a modification. A lookup only hits an entry
+ * searched in the same mode with at least the requested limit, or one holding the whole vein.
+ * Not thread-safe: only used from the main thread.
+ */
+public class VeinCache {
+
+    private final VeinMinerPlugin plugin;
+    private final Map<String, Long2ObjectOpenHashMap<CacheEntry>> members;
+    private final ArrayDeque<CacheEntry> entries;
+
+    public VeinCache(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.members = new HashMap<>();
+        this.entries = new ArrayDeque<>();
+    }
+
+    public boolean isEnabled() {
+        return plugin.getSettings().isCacheEnabled();
+    }
+
+    /**
+     * Look up a cached vein containing the given block
+     * @param origin The block being broken or previewed
+     * @param limit Search limit of the caller
+     * @param mode Search mode of the caller
+     * @return Cached vein rooted at the origin, or null on a miss
+     */
+    public VeinResult get(Block origin, int limit, VeinSearch.Mode mode) {
+        if (!isEnabled() || origin == null || origin.getLevel() == null) {
+            return null;
+        }
+
+        Long2ObjectOpenHashMap<CacheEntry> index = members.get(origin.getLevel().getName());
+        if (index == null) {
+            return null;
+        }
+
+        long pos = PackedPos.pack(origin.getFloorX(), origin.getFloorY(), origin.getFloorZ());
+        CacheEntry entry = index.get(pos);
+        if (entry == null) {
+            return null;
+        }
+        // A smaller search may have stopped short of what this caller would find, another mode orders differently
+        if (entry.mode != mode || (entry.limit < limit && entry.vein.isTruncated())) {
+            return null;
+        }
+
+        if (entry.expiresAt < plugin.getServer().getTick()
+                || !isSameType(entry.vein.getType(), origin.getId())
+                || !isUnchanged(entry)) {
+            invalidate(entry);
+            return null;
+        }
+
+        plugin.getMetrics().recordCacheHit();
+        return entry.vein.rootedAt(entry.vein.indexOf(pos));
+    }
+
+    /**
+     * Cache a freshly computed vein
+     * @param vein The vein to cache
+     * @param limit Search limit the vein was found with
+     * @param mode Search mode the vein was found with
+     */
+    public void put(VeinResult vein, int limit, VeinSearch.Mode mode) {
+        VeinMinerSettings settings = plugin.getSettings();
+        if (!settings.isCacheEnabled() || vein == null || vein.size() == 0) {
+            return;
+        }
+        // The vein may continue into the unloaded chunk once it loads, which the chunk versions would not notice
+        if (vein.isUnloadedBorder()) {
+            return;
+        }
+
+        // Replace any entry that already covers the origin
+        Long2ObjectOpenHashMap<CacheEntry> index = members.computeIfAbsent(vein.getLevel().getName(), k -> new Long2ObjectOpenHashMap<>());
+        CacheEntry previous = index.get(vein.getOrigin());
+        if (previous != null) {
+            invalidate(previous);
+        }
+
+        CacheEntry entry = new CacheEntry(vein, limit, mode, plugin.getServer().getTick() + settings.getCacheTtlTicks());
+        if (!snapshotChunks(entry)) {
+            return;
+        }
+
+        for (int i = 0; i < vein.size(); i++) {
+            index.put(vein.getPosition(i), entry);
+        }
+        entries.addLast(entry);
+
+        // Evict oldest entries once over capacity
+        while (entries.size() > settings.getCacheMaxEntries()) {
+            invalidate(entries.peekFirst());
+        }
+    }
+
+    /**
+     * Replace a mined vein with the part that was not mined
+     * Must be called after the blocks were broken so the stored chunk versions include those changes
+     * @param vein The vein that was (partially) mined
+     * @param consumed Number of positions from the front of the vein that were processed
+     * @param limit Search limit the vein was found with
+     * @param mode Search mode the vein was found with
+     */
+    public void storeRemainder(VeinResult vein, int consumed, int limit, VeinSearch.Mode mode) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Long2ObjectOpenHashMap<CacheEntry> index = members.get(vein.getLevel().getName());
+        if (index != null) {
+            CacheEntry entry = index.get(vein.getOrigin());
+            if (entry != null) {
+                invalidate(entry);
+            }
+        }
+
+        VeinResult remainder = vein.remainder(consumed);
+        if (remainder != null) {
+            // The rest of the same search, a caller with the same limit would not find more
+            put(remainder, limit, mode);
+        }
+    }
+
+    /**
+     * Drop every cached vein
+     */
+    public void clear() {
+        members.clear();
+        entries.clear();
+    }
+
+    private void invalidate(CacheEntry entry) {
+        if (entry == null || entry.removed) {
+            return;
+        }
+        entry.removed = true;
+        entries.remove(entry);
+
+        Long2ObjectOpenHashMap<CacheEntry> index = members.get(entry.vein.getLevel().getName());
+        if (index == null) {
+            return;
+        }
+        for (int i = 0; i < entry.vein.size(); i++) {
+            long pos = entry.vein.getPosition(i);
+            // Another entry may have taken over this position since
+            if (index.get(pos) == entry) {
+                index.remove(pos);
+            }
+        }
+        if (index.isEmpty()) {
+            members.remove(entry.vein.getLevel().getName());
+        }
+    }
+
+    /**
+     * Record the modification counters of every chunk the vein touches
+     * @param entry The entry to fill
+     * @return false if one of the chunks is not loaded
+     */
+    private boolean snapshotChunks(CacheEntry entry) {
+        Level level = entry.vein.getLevel();
+        LongOpenHashSet chunkKeys = new LongOpenHashSet();
+        for (int i = 0; i < entry.vein.size(); i++) {
+            chunkKeys.add(PackedPos.chunkKeyOf(entry.vein.getPosition(i)));
+        }
+
+        entry.chunkKeys = chunkKeys.toLongArray();
+        entry.chunkVersions = new long[entry.chunkKeys.length];
+        for (int i = 0; i < entry.chunkKeys.length; i++) {
+            IChunk chunk = getLoadedChunk(level, entry.chunkKeys[i]);
+            if (chunk == null) {
+                return false;
+            }
+            entry.chunkVersions[i] = chunk.getChanges();
+        }
+        return true;
+    }
+
+    /**
+     * The origin may be a different id of the same group (e.g. lit redstone ore)
+     */
+    private boolean isSameType(BlockType type, String blockId) {
+        BlockType current = plugin.getSettings().getBlockType(blockId);
+        return current != null && current.getId() == type.getId();
+    }
+
+    private boolean isUnchanged(CacheEntry entry) {
+        Level level = entry.vein.getLevel();
+        for (int i = 0; i < entry.chunkKeys.length; i++) {
+            IChunk chunk = getLoadedChunk(level, entry.chunkKeys[i]);
+            if (chunk == null || chunk.getChanges() != entry.chunkVersions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IChunk getLoadedChunk(Level level, long chunkKey) {
+        int chunkX = PackedPos.chunkX(chunkKey);
+        int chunkZ = PackedPos.chunkZ(chunkKey);
+        if (!level.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+        return level.getChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * A cached vein with the chunk versions it was computed against
+     */
+    private static class CacheEntry {
+        private final VeinResult vein;
+        private final int limit;
+        private final VeinSearch.Mode mode;
+        private final int expiresAt;
+        private long[] chunkKeys;
+        private long[] chunkVersions;
+        private boolean removed;
+
+        CacheEntry(VeinResult vein, int limit, VeinSearch.Mode mode, int expiresAt) {
+            this.vein = vein;
+            this.limit = limit;
+            this.mode = mode;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
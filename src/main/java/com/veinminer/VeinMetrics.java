@@ -0,0 +1,128 @@
+package com.veinminer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing vein searches since startup
+ * Shown by /vm metrics; thread-safe so API callers off the main thread can be counted too
+ */
+public final class VeinMetrics {
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder truncatedAtLimit = new LongAdder();
+    private final LongAdder unloadedBorders = new LongAdder();
+    private final LongAdder parallelSearches = new LongAdder();
+    private final LongAdder parallelMismatches = new LongAdder();
+    private final LongAdder reservedBlocks = new LongAdder();
+    private final LongAdder reservationConflicts = new LongAdder();
+    private final LongAdder holds = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+    private final AtomicLong maxHoldNanos = new AtomicLong();
+
+    /**
+     * Record a completed search
+     * @param vein The search result (may be null)
+     */
+    public void recordSearch(VeinResult vein) {
+        searches.increment();
+        if (vein == null) {
+            return;
+        }
+        if (vein.isTruncated()) {
+            truncatedAtLimit.increment();
+        }
+        if (vein.isUnloadedBorder()) {
+            unloadedBorders.increment();
+        }
+    }
+
+    public void recordParallelSearch() {
+        parallelSearches.increment();
+    }
+
+    /**
+     * Record a parallel search whose result differed from the sequential search (parallel-search.verify)
+     */
+    public void recordParallelMismatch() {
+        parallelMismatches.increment();
+    }
+
+    /**
+     * Record the blocks a vein job reserved and those already held by another job
+     */
+    public void recordReservation(int claimed, int conflicts) {
+        reservedBlocks.add(claimed);
+        reservationConflicts.add(conflicts);
+    }
+
+    /**
+     * Record how long a vein job held its reservation
+     */
+    public void recordHold(long nanos) {
+        holds.increment();
+        holdNanos.add(nanos);
+        maxHoldNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getTruncatedAtLimit() {
+        return truncatedAtLimit.sum();
+    }
+
+    /**
+     * @return Searches that stopped at an unloaded chunk instead of loading it
+     */
+    public long getUnloadedBorders() {
+        return unloadedBorders.sum();
+    }
+
+    /**
+     * @return Searches that ran on the parallel search pool
+     */
+    public long getParallelSearches() {
+        return parallelSearches.sum();
+    }
+
+    /**
+     * @return Verified parallel searches that differed from the sequential search, always 0 without parallel-search.verify
+     */
+    public long getParallelMismatches() {
+        return parallelMismatches.sum();
+    }
+
+    public long getReservedBlocks() {
+        return reservedBlocks.sum();
+    }
+
+    /**
+     * @return Blocks skipped because another vein job had reserved them
+     */
+    public long getReservationConflicts() {
+        return reservationConflicts.sum();
+    }
+
+    /**
+     * @return Average reservation hold time in nanoseconds, 0 before the first release
+     */
+    public long getAverageHoldNanos() {
+        long count = holds.sum();
+        return count == 0 ? 0 : holdNanos.sum() / count;
+    }
+
+    public long getMaxHoldNanos() {
+        return maxHoldNanos.get();
+    }
+}
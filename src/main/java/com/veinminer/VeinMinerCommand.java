@@ -1,59 +1,49 @@
 package com.veinminer;
 
 import cn.nukkit.Player;
+import cn.nukkit.Server;
 import cn.nukkit.command.Command;
 import cn.nukkit.command.CommandSender;
 import cn.nukkit.command.data.CommandEnum;
 import cn.nukkit.command.data.CommandParameter;
-import cn.nukkit.event.EventHandler;
-import cn.nukkit.event.Listener;
-import cn.nukkit.event.player.PlayerQuitEvent;
+import cn.nukkit.item.Item;
+import cn.nukkit.scheduler.AsyncTask;
 import cn.nukkit.utils.TextFormat;
+import com.veinminer.api.StatsWindow;
+import com.veinminer.api.VeinMinerAPI;
+import com.veinminer.api.VeinSearchStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Command handler for VeinMiner
- * Implements Listener to clean up player data on quit (prevents memory leaks)
+ * Per-player toggle and preferences are kept in the plugin's {@link PreferenceStore}
  */
-public class VeinMinerCommand extends Command implements Listener {
+public class VeinMinerCommand extends Command {
     
     // Logging tag
     private static final String LOG_TAG = "[VeinMiner] ";
     
     private final VeinMinerPlugin plugin;
-    private final Set<UUID> disabledPlayers;
+    private final PreferenceStore preferences;
     
     public VeinMinerCommand(VeinMinerPlugin plugin) {
         super("veinminer", "Mine entire veins at once! Use /vm help for more info", "/veinminer", new String[]{"vm", "vmine"});
         this.plugin = plugin;
-        this.disabledPlayers = ConcurrentHashMap.newKeySet(); // Thread-safe set
+        this.preferences = plugin.getPreferenceStore();
         // Don't set permission here - let plugin.yml handle it
         
-        // Register this as a listener for cleanup
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
-        
         // Set up command parameters for proper display
         this.commandParameters.clear();
         this.commandParameters.put("default", new CommandParameter[]{
             CommandParameter.newEnum("action", true, new CommandEnum("VeinMinerAction", 
-                new String[]{"help", "reload", "stats", "toggle", "on", "off", "status"}))
+                new String[]{"help", "reload", "stats", "top", "toggle", "on", "off", "status", "preview", "mode", "metrics", "index", "benchmark", "undo"}))
         });
     }
     
-    /**
-     * Clean up player data when they disconnect to prevent memory leaks
-     */
-    @EventHandler
-    public void onPlayerQuit(PlayerQuitEvent event) {
-        UUID uuid = event.getPlayer().getUniqueId();
-        disabledPlayers.remove(uuid);
-    }
-    
     /**
      * Provides tab completion for command arguments
      */
@@ -65,12 +55,21 @@ public class VeinMinerCommand extends Command implements Listener {
         }
         if (sender.hasPermission("veinminer.stats")) {
             subcommands.add("stats");
+            subcommands.add("top");
+        }
+        if (sender.hasPermission("veinminer.admin")) {
+            subcommands.add("metrics");
+            subcommands.add("index");
+            subcommands.add("benchmark");
+            subcommands.add("undo");
         }
         if (sender.hasPermission("veinminer.toggle")) {
             subcommands.add("toggle");
             subcommands.add("on");
             subcommands.add("off");
             subcommands.add("status");
+            subcommands.add("preview");
+            subcommands.add("mode");
         }
         return subcommands.toArray(new String[0]);
     }
@@ -103,9 +102,13 @@ public class VeinMinerCommand extends Command implements Listener {
                         return true;
                     }
                     
-                    plugin.reloadConfig();
-                    plugin.reloadConfiguration();
-                    sender.sendMessage(TextFormat.GREEN + "VeinMiner configuration reloaded!");
+                    // The config is parsed off the main thread, confirm once the new settings are live
+                    sender.sendMessage(TextFormat.YELLOW + "Reloading VeinMiner configuration...");
+                    plugin.reloadConfiguration(() -> {
+                        if (!(sender instanceof Player) || ((Player) sender).isOnline()) {
+                            sender.sendMessage(TextFormat.GREEN + "VeinMiner configuration reloaded!");
+                        }
+                    });
                     return true;
                     
                 case "stats":
@@ -122,11 +125,57 @@ public class VeinMinerCommand extends Command implements Listener {
                     
                     Player player = (Player) sender;
                     StatisticsTracker.PlayerStats stats = plugin.getStatsTracker().getStats(player);
+                    if (args.length > 1) {
+                        // Blocks of one type: accepts type names and any member of a grouped type
+                        String typeName = args[1].toLowerCase();
+                        if (typeName.indexOf(':') < 0) {
+                            typeName = "minecraft:" + typeName;
+                        }
+                        int typeId = BlockRegistry.idOf(typeName);
+                        if (typeId < 0) {
+                            BlockType statsType = plugin.getSettings().getBlockType(typeName);
+                            typeId = statsType == null ? -1 : statsType.getId();
+                        }
+                        if (typeId < 0) {
+                            sender.sendMessage(TextFormat.RED + "Unknown block type: " + TextFormat.GRAY + args[1]);
+                            return true;
+                        }
+                        sender.sendMessage(TextFormat.YELLOW + StatisticsTracker.formatTypeName(BlockRegistry.nameOf(typeId)) + ": " + 
+                            TextFormat.WHITE + stats.getTypeBlocks().get(typeId) + " blocks vein mined");
+                        return true;
+                    }
                     sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
                     sender.sendMessage(stats.getFormattedStats());
                     sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
                     return true;
                     
+                case "top":
+                    if (!sender.hasPermission("veinminer.stats")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to view stats.");
+                        return true;
+                    }
+                    
+                    StatsWindow window = args.length > 1 ? StatsWindow.fromName(args[1]) : StatsWindow.DAY;
+                    if (window == null) {
+                        sender.sendMessage(TextFormat.GRAY + "Usage: /vm top [hour|day|week]");
+                        return true;
+                    }
+                    StatisticsTracker tracker = plugin.getStatsTracker();
+                    Map<UUID, Long> top = tracker.getTopPlayers(window, 10);
+                    sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬ Top Vein Miners (" + window.name().toLowerCase() + ") ▬▬▬▬▬▬▬");
+                    sender.sendMessage(TextFormat.YELLOW + "Server Total: " + TextFormat.WHITE + tracker.getServerBlocks(window) + " blocks");
+                    int rank = 1;
+                    for (Map.Entry<UUID, Long> entry : top.entrySet()) {
+                        String name = tracker.getStats(entry.getKey()).getPlayerName();
+                        sender.sendMessage(TextFormat.GRAY + "#" + rank++ + " " + TextFormat.WHITE + name + 
+                            TextFormat.GRAY + " - " + TextFormat.WHITE + entry.getValue() + " blocks");
+                    }
+                    if (top.isEmpty()) {
+                        sender.sendMessage(TextFormat.GRAY + "Nobody has vein mined in this window.");
+                    }
+                    sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+                    return true;
+                    
                 case "toggle":
                 case "t":
                     if (!(sender instanceof Player)) {
@@ -142,11 +191,13 @@ public class VeinMinerCommand extends Command implements Listener {
                     Player togglePlayer = (Player) sender;
                     UUID uuid = togglePlayer.getUniqueId();
                     
-                    if (disabledPlayers.contains(uuid)) {
-                        disabledPlayers.remove(uuid);
+                    if (preferences.isDisabled(uuid)) {
+                        preferences.setDisabled(uuid, false);
+                        plugin.getProfileManager().setToggledOn(togglePlayer, true);
                         sender.sendMessage(TextFormat.GREEN + "✓ VeinMiner enabled! Sneak while mining to activate.");
                     } else {
-                        disabledPlayers.add(uuid);
+                        preferences.setDisabled(uuid, true);
+                        plugin.getProfileManager().setToggledOn(togglePlayer, false);
                         sender.sendMessage(TextFormat.RED + "✗ VeinMiner disabled! You'll mine normally.");
                     }
                     return true;
@@ -166,10 +217,11 @@ public class VeinMinerCommand extends Command implements Listener {
                     Player enablePlayer = (Player) sender;
                     UUID enableUuid = enablePlayer.getUniqueId();
                     
-                    if (!disabledPlayers.contains(enableUuid)) {
+                    if (!preferences.isDisabled(enableUuid)) {
                         sender.sendMessage(TextFormat.YELLOW + "VeinMiner is already enabled!");
                     } else {
-                        disabledPlayers.remove(enableUuid);
+                        preferences.setDisabled(enableUuid, false);
+                        plugin.getProfileManager().setToggledOn(enablePlayer, true);
                         sender.sendMessage(TextFormat.GREEN + "✓ VeinMiner enabled! Sneak while mining to activate.");
                     }
                     return true;
@@ -189,10 +241,11 @@ public class VeinMinerCommand extends Command implements Listener {
                     Player disablePlayer = (Player) sender;
                     UUID disableUuid = disablePlayer.getUniqueId();
                     
-                    if (disabledPlayers.contains(disableUuid)) {
+                    if (preferences.isDisabled(disableUuid)) {
                         sender.sendMessage(TextFormat.YELLOW + "VeinMiner is already disabled!");
                     } else {
-                        disabledPlayers.add(disableUuid);
+                        preferences.setDisabled(disableUuid, true);
+                        plugin.getProfileManager().setToggledOn(disablePlayer, false);
                         sender.sendMessage(TextFormat.RED + "✗ VeinMiner disabled! You'll mine normally.");
                     }
                     return true;
@@ -210,11 +263,30 @@ public class VeinMinerCommand extends Command implements Listener {
                     }
                     
                     Player statusPlayer = (Player) sender;
-                    boolean isEnabled = !disabledPlayers.contains(statusPlayer.getUniqueId());
+                    boolean isEnabled = !preferences.isDisabled(statusPlayer.getUniqueId());
                     
                     sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬ " + TextFormat.BOLD + "VeinMiner Status" + TextFormat.RESET + TextFormat.GOLD + " ▬▬▬▬▬▬▬▬");
                     sender.sendMessage(TextFormat.YELLOW + "Status: " + (isEnabled ? TextFormat.GREEN + "✓ Enabled" : TextFormat.RED + "✗ Disabled"));
                     sender.sendMessage(TextFormat.YELLOW + "Version: " + TextFormat.WHITE + plugin.getDescription().getVersion());
+                    PlayerProfile profile = plugin.getProfileManager().getProfile(statusPlayer);
+                    sender.sendMessage(TextFormat.YELLOW + "Tier: " + TextFormat.WHITE + profile.getTierName() + 
+                        TextFormat.GRAY + " (max " + profile.getMaxBlocks() + " blocks" + 
+                        (profile.getBlocksPerSecond() > 0 ? ", " + profile.getBlocksPerSecond() + " blocks/s" : "") + ")");
+                    sender.sendMessage(TextFormat.YELLOW + "Mode: " + TextFormat.WHITE + formatMode(profile.getSearchMode()) + 
+                        TextFormat.YELLOW + " | Preview: " + (preferences.isPreviewEnabled(statusPlayer.getUniqueId()) ? TextFormat.GREEN + "on" : TextFormat.RED + "off"));
+                    VeinSearchStrategy strategy = VeinMinerAPI.get().getSearchStrategy();
+                    if (strategy != null) {
+                        sender.sendMessage(TextFormat.YELLOW + "Search: " + TextFormat.WHITE + strategy.getName() + TextFormat.GRAY + " (provided by a plugin)");
+                    }
+                    LoadController load = plugin.getLoadController();
+                    if (!"normal".equals(load.getLevelName()) || sender.hasPermission("veinminer.admin")) {
+                        sender.sendMessage(TextFormat.YELLOW + "Server load: " + TextFormat.WHITE + load.getLevelName() + 
+                            TextFormat.GRAY + " (" + (load.getSmoothedMspt() < 0 ? "-" : String.format("%.1f", load.getSmoothedMspt())) + " ms/tick, veins at " + 
+                            Math.round(load.getScale() * 100) + "%)");
+                    }
+                    if (!profile.isWorldEnabled()) {
+                        sender.sendMessage(TextFormat.GRAY + "Vein mining is disabled in this world.");
+                    }
                     if (isEnabled) {
                         sender.sendMessage(TextFormat.GRAY + "Tip: Sneak while mining to activate!");
                     } else {
@@ -223,6 +295,221 @@ public class VeinMinerCommand extends Command implements Listener {
                     sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
                     return true;
                     
+                case "preview":
+                    if (!(sender instanceof Player)) {
+                        sender.sendMessage(TextFormat.RED + "This command can only be used by players.");
+                        return true;
+                    }
+                    
+                    if (!sender.hasPermission("veinminer.toggle")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to change preferences.");
+                        return true;
+                    }
+                    
+                    UUID previewUuid = ((Player) sender).getUniqueId();
+                    boolean previewOn;
+                    if (args.length > 1) {
+                        previewOn = args[1].equalsIgnoreCase("on") || args[1].equalsIgnoreCase("true");
+                    } else {
+                        previewOn = !preferences.isPreviewEnabled(previewUuid);
+                    }
+                    preferences.setPreviewEnabled(previewUuid, previewOn);
+                    sender.sendMessage(previewOn 
+                        ? TextFormat.GREEN + "✓ Vein preview enabled! Sneak and look at a vein to see it." 
+                        : TextFormat.RED + "✗ Vein preview disabled!");
+                    return true;
+                    
+                case "mode":
+                    if (!(sender instanceof Player)) {
+                        sender.sendMessage(TextFormat.RED + "This command can only be used by players.");
+                        return true;
+                    }
+                    
+                    if (!sender.hasPermission("veinminer.toggle")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to change preferences.");
+                        return true;
+                    }
+                    
+                    Player modePlayer = (Player) sender;
+                    if (args.length < 2) {
+                        sender.sendMessage(TextFormat.YELLOW + "Mode: " + TextFormat.WHITE + formatMode(plugin.getProfileManager().getProfile(modePlayer).getSearchMode()));
+                        sender.sendMessage(TextFormat.GRAY + "Usage: /vm mode <nearest|breadth-first|default>");
+                        return true;
+                    }
+                    
+                    VeinSearch.Mode mode = null;
+                    if (!args[1].equalsIgnoreCase("default")) {
+                        mode = VeinSearch.Mode.fromConfig(args[1], null);
+                        if (mode == null) {
+                            sender.sendMessage(TextFormat.RED + "Unknown mode: " + TextFormat.GRAY + args[1]);
+                            sender.sendMessage(TextFormat.GRAY + "Usage: /vm mode <nearest|breadth-first|default>");
+                            return true;
+                        }
+                    }
+                    preferences.setSearchMode(modePlayer.getUniqueId(), mode);
+                    PlayerProfile modeProfile = plugin.getProfileManager().refresh(modePlayer);
+                    sender.sendMessage(TextFormat.GREEN + "✓ Vein mining mode set to " + formatMode(modeProfile.getSearchMode()) + ".");
+                    return true;
+                    
+                case "metrics":
+                    if (!sender.hasPermission("veinminer.admin")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to view metrics.");
+                        return true;
+                    }
+                    
+                    VeinMetrics metrics = plugin.getMetrics();
+                    sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬ " + TextFormat.BOLD + "VeinMiner Metrics" + TextFormat.RESET + TextFormat.GOLD + " ▬▬▬▬▬▬▬▬");
+                    sender.sendMessage(TextFormat.YELLOW + "Searches: " + TextFormat.WHITE + metrics.getSearches() + 
+                        TextFormat.YELLOW + " | Cache hits: " + TextFormat.WHITE + metrics.getCacheHits());
+                    sender.sendMessage(TextFormat.YELLOW + "Stopped at limit: " + TextFormat.WHITE + metrics.getTruncatedAtLimit() + 
+                        TextFormat.YELLOW + " | At unloaded chunks: " + TextFormat.WHITE + metrics.getUnloadedBorders());
+                    sender.sendMessage(TextFormat.YELLOW + "Parallel searches: " + TextFormat.WHITE + metrics.getParallelSearches() +
+                        (plugin.getSettings().isParallelSearchVerify() ? TextFormat.YELLOW + " | Mismatches: " + TextFormat.WHITE + metrics.getParallelMismatches() : ""));
+                    sender.sendMessage(TextFormat.YELLOW + "Reserved blocks: " + TextFormat.WHITE + metrics.getReservedBlocks() + 
+                        TextFormat.YELLOW + " | Held now: " + TextFormat.WHITE + plugin.getReservations().getHeld() + 
+                        TextFormat.YELLOW + " | Conflicts: " + TextFormat.WHITE + metrics.getReservationConflicts() +
+                        TextFormat.GRAY + " (vein jobs claim and release within one tick, so they can't overlap yet)");
+                    sender.sendMessage(TextFormat.YELLOW + "Reservation hold: " + TextFormat.WHITE + 
+                        String.format("%.2f ms avg, %.2f ms max", metrics.getAverageHoldNanos() / 1e6, metrics.getMaxHoldNanos() / 1e6));
+                    UndoJournal journal = plugin.getUndoJournal();
+                    sender.sendMessage(TextFormat.YELLOW + "Undo journal: " + TextFormat.WHITE + journal.getEntryCount() + " veins, " + 
+                        String.format("%.1f of %.1f KiB", journal.getUsedBytes() / 1024.0, journal.getCapacityBytes() / 1024.0) + 
+                        (journal.getOversizedVeins() > 0 ? TextFormat.GRAY + " (" + journal.getOversizedVeins() + " too large to keep)" : ""));
+                    sender.sendMessage(TextFormat.YELLOW + "Skipped particles: " + TextFormat.WHITE + plugin.getEffectsBatcher().getDroppedParticles());
+                    sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+                    return true;
+                    
+                case "index":
+                    if (!sender.hasPermission("veinminer.admin")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to view the ore index.");
+                        return true;
+                    }
+                    
+                    OreIndex index = plugin.getOreIndex();
+                    if (!index.isEnabled()) {
+                        sender.sendMessage(TextFormat.YELLOW + "The ore index is disabled (ore-index.enabled in config.yml).");
+                        return true;
+                    }
+                    
+                    sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬ " + TextFormat.BOLD + "VeinMiner Ore Index" + TextFormat.RESET + TextFormat.GOLD + " ▬▬▬▬▬▬▬▬");
+                    int indexedChunks = index.getChunkCount();
+                    sender.sendMessage(TextFormat.YELLOW + "Chunks: " + TextFormat.WHITE + indexedChunks + 
+                        TextFormat.YELLOW + " | Pending scans: " + TextFormat.WHITE + index.getPendingScans());
+                    sender.sendMessage(TextFormat.YELLOW + "Memory: " + TextFormat.WHITE + String.format("%.1f KiB", index.getMemoryBytes() / 1024.0) + 
+                        TextFormat.GRAY + " (" + (indexedChunks == 0 ? 0 : index.getMemoryBytes() / indexedChunks) + " bytes per chunk)");
+                    if (sender instanceof Player) {
+                        Player indexPlayer = (Player) sender;
+                        int chunkX = indexPlayer.getFloorX() >> 4;
+                        int chunkZ = indexPlayer.getFloorZ() >> 4;
+                        Map<String, Integer> density = index.getDensity(indexPlayer.getLevel(), chunkX, chunkZ);
+                        if (density == null) {
+                            sender.sendMessage(TextFormat.GRAY + "This chunk is not indexed yet.");
+                        } else if (density.isEmpty()) {
+                            sender.sendMessage(TextFormat.GRAY + "No vein blocks in this chunk.");
+                        } else {
+                            sender.sendMessage(TextFormat.YELLOW + "Chunk " + chunkX + ", " + chunkZ + ":");
+                            for (Map.Entry<String, Integer> typeCount : density.entrySet()) {
+                                sender.sendMessage(TextFormat.GRAY + "  " + typeCount.getKey() + ": " + TextFormat.WHITE + typeCount.getValue());
+                            }
+                        }
+                    }
+                    sender.sendMessage(TextFormat.GOLD + "▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+                    return true;
+                    
+                case "benchmark":
+                    if (!sender.hasPermission("veinminer.admin")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to run benchmarks.");
+                        return true;
+                    }
+                    
+                    int iterations = 20000;
+                    if (args.length > 1) {
+                        try {
+                            iterations = Math.max(100, Math.min(1_000_000, Integer.parseInt(args[1])));
+                        } catch (NumberFormatException e) {
+                            sender.sendMessage(TextFormat.GRAY + "Usage: /vm benchmark [iterations]");
+                            return true;
+                        }
+                    }
+                    
+                    // Runs off the main thread, the result is reported back on it
+                    final int benchmarkIterations = iterations;
+                    final VeinMinerSettings benchmarkSettings = plugin.getSettings();
+                    // The held tool if there is one, so isProperTool takes the same path as real breaks
+                    Item heldTool = sender instanceof Player ? ((Player) sender).getInventory().getItemInHand() : null;
+                    final Item benchmarkTool = heldTool == null || heldTool.isNull() ? Item.get("minecraft:diamond_pickaxe") : heldTool.clone();
+                    sender.sendMessage(TextFormat.YELLOW + "Benchmarking section scan kernels and block lookups (" + iterations + " iterations each)...");
+                    plugin.getServer().getScheduler().scheduleAsyncTask(plugin, new AsyncTask() {
+                        private double[] result;
+                        private double[] lookups;
+                        
+                        @Override
+                        public void onRun() {
+                            result = SectionScanner.benchmark(benchmarkIterations);
+                            lookups = benchmarkSettings.benchmarkLookups(benchmarkTool, benchmarkIterations);
+                        }
+                        
+                        @Override
+                        public void onCompletion(Server server) {
+                            if (sender instanceof Player && !((Player) sender).isOnline()) {
+                                return;
+                            }
+                            sender.sendMessage(TextFormat.YELLOW + "Kernel in use: " + TextFormat.WHITE + SectionScanner.getKernelName());
+                            sender.sendMessage(TextFormat.YELLOW + "Scalar: " + TextFormat.WHITE + String.format("%.0f ns/section", result[0]));
+                            if (result[1] < 0) {
+                                sender.sendMessage(TextFormat.YELLOW + "Vector: " + TextFormat.GRAY + "unavailable (start the server with --add-modules jdk.incubator.vector)");
+                            } else {
+                                sender.sendMessage(TextFormat.YELLOW + "Vector: " + TextFormat.WHITE + String.format("%.0f ns/section", result[1]) + 
+                                    TextFormat.GRAY + String.format(" (%.1fx)", result[0] / result[1]));
+                            }
+                            sender.sendMessage(TextFormat.YELLOW + "Registry lookup: " + TextFormat.WHITE + String.format("%.1f ns", lookups[0]) +
+                                TextFormat.YELLOW + " | Tool check: " + TextFormat.WHITE + String.format("%.1f ns", lookups[1]));
+                        }
+                    });
+                    return true;
+                    
+                case "undo":
+                    if (!sender.hasPermission("veinminer.admin")) {
+                        sender.sendMessage(TextFormat.RED + "You don't have permission to undo vein mining.");
+                        return true;
+                    }
+                    
+                    if (args.length < 2) {
+                        sender.sendMessage(TextFormat.GRAY + "Usage: /vm undo <player> [veins]");
+                        return true;
+                    }
+                    int undoVeins = 1;
+                    if (args.length > 2) {
+                        try {
+                            undoVeins = Math.max(1, Math.min(100, Integer.parseInt(args[2])));
+                        } catch (NumberFormatException e) {
+                            sender.sendMessage(TextFormat.GRAY + "Usage: /vm undo <player> [veins]");
+                            return true;
+                        }
+                    }
+                    
+                    String undoTarget = args[1];
+                    sender.sendMessage(TextFormat.YELLOW + "Looking up the last " + undoVeins + " vein(s) of " + undoTarget + "...");
+                    plugin.getUndoJournal().undo(undoTarget, undoVeins, plugin.getSettings().getUndoBlocksPerTick(), new UndoJournal.UndoListener() {
+                        @Override
+                        public void onLoaded(int veins, int blocks) {
+                            if (veins == 0) {
+                                sendIfOnline(sender, TextFormat.YELLOW + "No journaled veins left to undo for " + undoTarget + ".");
+                            } else {
+                                sendIfOnline(sender, TextFormat.YELLOW + "Restoring " + veins + " vein(s), " + blocks + " blocks...");
+                            }
+                        }
+                        
+                        @Override
+                        public void onFinished(int restored, int skipped) {
+                            if (restored + skipped > 0) {
+                                sendIfOnline(sender, TextFormat.GREEN + "✓ Restored " + restored + " blocks" + 
+                                    (skipped > 0 ? TextFormat.GRAY + " (" + skipped + " skipped, no longer air)" : ""));
+                            }
+                        }
+                    });
+                    return true;
+                    
                 default:
                     sender.sendMessage(TextFormat.RED + "Unknown subcommand: " + TextFormat.GRAY + subcommand);
                     sender.sendMessage(TextFormat.YELLOW + "Use " + TextFormat.WHITE + "/vm help" + TextFormat.YELLOW + " for a list of commands.");
@@ -242,7 +529,7 @@ public class VeinMinerCommand extends Command implements Listener {
     
     private void sendDetailedHelp(CommandSender sender) {
         sender.sendMessage(TextFormat.GOLD + "VeinMiner Help");
-        sender.sendMessage(TextFormat.YELLOW + "Commands: /vm toggle, /vm stats, /vm reload");
+        sender.sendMessage(TextFormat.YELLOW + "Commands: /vm toggle, /vm stats, /vm top, /vm reload, /vm preview, /vm mode");
         sender.sendMessage(TextFormat.GRAY + "Use /vm <command> for more info");
     }
     
@@ -252,9 +539,16 @@ public class VeinMinerCommand extends Command implements Listener {
      * @return true if disabled
      */
     public boolean isDisabled(Player player) {
-        if (player == null) {
-            return false;
+        return preferences.isDisabled(player);
+    }
+    
+    private void sendIfOnline(CommandSender sender, String message) {
+        if (!(sender instanceof Player) || ((Player) sender).isOnline()) {
+            sender.sendMessage(message);
         }
-        return disabledPlayers.contains(player.getUniqueId());
+    }
+    
+    private String formatMode(VeinSearch.Mode mode) {
+        return mode == VeinSearch.Mode.NEAREST ? "nearest" : "breadth-first";
     }
 }
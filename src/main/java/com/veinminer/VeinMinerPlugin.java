@@ -7,66 +7,80 @@ import cn.nukkit.event.EventPriority;
 import cn.nukkit.event.Listener;
 import cn.nukkit.event.block.BlockBreakEvent;
 import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
 import cn.nukkit.level.Sound;
+import cn.nukkit.math.Vector3;
 import cn.nukkit.plugin.PluginBase;
+import cn.nukkit.scheduler.AsyncTask;
 import cn.nukkit.utils.Config;
 import cn.nukkit.utils.TextFormat;
+import com.veinminer.api.VeinMinePostEvent;
+import com.veinminer.api.VeinMinePreEvent;
+import com.veinminer.api.VeinMinerAPI;
+import com.veinminer.api.VeinPositions;
+import com.veinminer.api.VeinSearchStrategy;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class VeinMinerPlugin extends PluginBase implements Listener {
 
     // Constants for magic numbers
-    private static final int DEFAULT_MAX_BLOCKS = 64;
-    private static final int NEIGHBOR_RANGE = 1; // -1 to 1 for 3x3x3 cube
     private static final int UPDATE_CHECK_TIMEOUT = 5000;
-    private static final double DEFAULT_DURABILITY_MULTIPLIER = 1.0;
-    
-    private int maxBlocks;
-    private static final Set<String> VEIN_BLOCKS = new HashSet<>(); // Static cached blocks
-    private static final Map<String, Boolean> TOOL_VALIDATION_CACHE = new ConcurrentHashMap<>();
-    private static final int MAX_CACHE_SIZE = 1000; // Prevent unbounded cache growth
-    
-    private boolean autoPickupEnabled;
-    private String fullInventoryAction;
-    private String inventoryFullMessage;
-    private boolean loggingEnabled;
-    private boolean logVeinMining;
-    private boolean logConfigLoading;
-    private double durabilityMultiplier;
-    
-    // New features
-    private List<String> disabledWorlds;
-    private boolean particlesEnabled;
-    private boolean soundsEnabled;
-    private boolean updateCheckerEnabled;
-    private String githubRepo;
+    private static final String BLOCKS_FILE = "blocks.yml";
+    
+    // PERFORMANCE: All settings live in one immutable snapshot, swapped atomically on reload
+    private volatile VeinMinerSettings settings;
+    private final AtomicInteger reloadGeneration = new AtomicInteger();
+    
     private StatisticsTracker statsTracker;
     private VeinMinerCommand veinMinerCommand;
+    private VeinPreviewManager previewManager;
+    private VeinCache veinCache;
+    private ProfileManager profileManager;
+    private PreferenceStore preferenceStore;
+    private UndoJournal undoJournal;
+    private VeinMinerAPI api;
+    private ProtectionService protectionService;
+    private EffectsBatcher effectsBatcher;
+    private LoadController loadController;
+    private OreIndex oreIndex;
+    private ParallelVeinSearch parallelSearch;
+    private final VeinMetrics metrics = new VeinMetrics();
+    private final ReservationTable reservations = new ReservationTable(metrics);
     
-    // Config-based block filtering
-    private Map<String, Boolean> configuredBlocks;
-    private boolean oresEnabled;
-    private boolean logsEnabled;
-    private boolean leavesEnabled;
+    // Veins started since enable, part of every vein's random seed (main thread only)
+    private long veinCounter;
+    
+    // Delayed ground drops not spawned yet, flushed on disable so no vein loses its drops (main thread only)
+    private final Set<Runnable> pendingGroundDrops = new LinkedHashSet<>();
 
     @Override
     public void onEnable() {
-        // Save default config
+        // Save default config and block definitions
         this.saveDefaultConfig();
+        this.saveResource(BLOCKS_FILE);
         
-        // Load configuration
-        loadConfig();
+        // Build the initial settings synchronously, everything below reads them
+        settings = VeinMinerSettings.fromConfig(this.getConfig(), new Config(new File(this.getDataFolder(), BLOCKS_FILE), Config.YAML));
+        logSettings(settings);
         
-        // Load vein blocks once (static cache)
-        if (VEIN_BLOCKS.isEmpty()) {
-            loadVeinBlocks();
-        }
+        // Load persistent player preferences (asynchronously)
+        preferenceStore = new PreferenceStore(this);
+        preferenceStore.start();
+        
+        // Journal of mined veins for /vm undo (written write-behind, size fixed until restart)
+        undoJournal = new UndoJournal(this, settings.getUndoMaxBytes());
+        undoJournal.start();
+        
+        // Initialize per-player profiles (tiers and world overrides)
+        profileManager = new ProfileManager(this);
         
         // Initialize statistics tracker
         statsTracker = new StatisticsTracker(this);
@@ -75,246 +89,198 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
         veinMinerCommand = new VeinMinerCommand(this);
         this.getServer().getCommandMap().register("veinminer", veinMinerCommand);
         
+        // Initialize vein cache (shared by breaking and preview)
+        veinCache = new VeinCache(this);
+        
+        // Initialize vein preview (registers its own listener)
+        previewManager = new VeinPreviewManager(this);
+        
+        // Initialize protection checks for vein blocks
+        protectionService = new ProtectionService(this);
+        
+        // Initialize batched vein particles and sounds
+        effectsBatcher = new EffectsBatcher(this);
+        
+        // Scale vein mining with server load
+        loadController = new LoadController(this);
+        
+        // Index of vein blocks in loaded chunks (registers its own listener)
+        oreIndex = new OreIndex(this);
+        
         // Register events
         this.getServer().getPluginManager().registerEvents(this, this);
         
-        // Schedule periodic cache cleanup (every 30 minutes)
-        this.getServer().getScheduler().scheduleDelayedRepeatingTask(this, () -> {
-            if (TOOL_VALIDATION_CACHE.size() > MAX_CACHE_SIZE) {
-                TOOL_VALIDATION_CACHE.clear();
-                if (loggingEnabled && logConfigLoading) {
-                    this.getLogger().info("[Cache] Tool validation cache cleared (size limit reached)");
-                }
-            }
-        }, 36000, 36000); // 30 minutes in ticks (30*60*20)
+        // Publish the API for other plugins
+        api = VeinMinerAPI.enable(this);
         
         // Startup message
-        this.getLogger().info("Plugin enabled (v" + getDescription().getVersion() + ") - Max blocks: " + maxBlocks + ", Vein blocks: " + VEIN_BLOCKS.size());
+        this.getLogger().info("Plugin enabled (v" + getDescription().getVersion() + ") - Max blocks: " + settings.getMaxBlocks() + ", Vein blocks: " + settings.getVeinBlockCount());
         
         // Check for updates
-        if (updateCheckerEnabled) {
+        if (settings.isUpdateCheckerEnabled()) {
             checkForUpdates();
         }
     }
     
     @Override
     public void onDisable() {
+        VeinMinerAPI.disable();
+        if (loadController != null) {
+            loadController.shutdown();
+        }
+        // The scheduler drops delayed tasks on disable, but the blocks of these veins are already gone
+        for (Runnable drop : new ArrayList<>(pendingGroundDrops)) {
+            drop.run();
+        }
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+        }
         // Save statistics synchronously (async not allowed during shutdown)
         if (statsTracker != null) {
             statsTracker.saveStats(false);
         }
+        if (preferenceStore != null) {
+            preferenceStore.shutdown();
+        }
+        if (undoJournal != null) {
+            undoJournal.shutdown();
+        }
         this.getLogger().info(TextFormat.RED + "VeinMiner plugin disabled!");
     }
     
     /**
-     * Load and validate configuration settings
+     * Log validation problems and the config summary of a settings snapshot
+     * @param loaded The snapshot that was just applied
      */
-    private void loadConfig() {
-        Config config = this.getConfig();
-        
-        // Validate and load max blocks
-        maxBlocks = config.getInt("max-blocks", DEFAULT_MAX_BLOCKS);
-        if (maxBlocks < 1) {
-            this.getLogger().warning("Invalid max-blocks value (" + maxBlocks + "), using default: " + DEFAULT_MAX_BLOCKS);
-            maxBlocks = DEFAULT_MAX_BLOCKS;
-        }
-        
-        // Load auto-pickup settings
-        autoPickupEnabled = config.getBoolean("auto-pickup.enabled", true);
-        fullInventoryAction = config.getString("auto-pickup.full-inventory-action", "drop").toLowerCase();
-        
-        // Load durability multiplier
-        durabilityMultiplier = config.getDouble("tool-durability.multiplier", DEFAULT_DURABILITY_MULTIPLIER);
-        if (durabilityMultiplier < 0) {
-            this.getLogger().warning("Invalid durability multiplier, using default: " + DEFAULT_DURABILITY_MULTIPLIER);
-            durabilityMultiplier = DEFAULT_DURABILITY_MULTIPLIER;
-        }
-        
-        // Load logging settings
-        loggingEnabled = config.getBoolean("logging.enabled", true);
-        logVeinMining = config.getBoolean("logging.log-vein-mining", true);
-        logConfigLoading = config.getBoolean("logging.log-config-loading", true);
-        
-        // Load world restrictions
-        disabledWorlds = config.getStringList("disabled-worlds");
-        
-        // Load effects
-        particlesEnabled = config.getBoolean("effects.particles", true);
-        soundsEnabled = config.getBoolean("effects.sounds", true);
-        
-        // Load update checker
-        updateCheckerEnabled = config.getBoolean("update-checker.enabled", true);
-        githubRepo = config.getString("update-checker.repository", "EuphoriaDevelopmentOrg/VeinMiner-PowerNukkitX");
-        
-        // Load messages
-        inventoryFullMessage = config.getString("messages.inventory-full", "&eInventory full! {count} items were {action}.");
-        
-        // Load block category settings
-        oresEnabled = config.getBoolean("enabled-blocks.ores", true);
-        logsEnabled = config.getBoolean("enabled-blocks.logs", true);
-        leavesEnabled = config.getBoolean("enabled-blocks.leaves", true);
-        
-        // Load specific block configurations
-        configuredBlocks = new HashMap<>();
-        if (config.exists("blocks")) {
-            Map<String, Object> blocksSection = config.getSection("blocks").getAllMap();
-            for (Map.Entry<String, Object> entry : blocksSection.entrySet()) {
-                if (entry.getValue() instanceof Boolean) {
-                    configuredBlocks.put(entry.getKey().toUpperCase(), (Boolean) entry.getValue());
-                }
-            }
+    private void logSettings(VeinMinerSettings loaded) {
+        for (String warning : loaded.getWarnings()) {
+            this.getLogger().warning(warning);
         }
         
-        if (loggingEnabled && logConfigLoading) {
-            this.getLogger().info(TextFormat.GREEN + "[Config] Auto-pickup: " + (autoPickupEnabled ? "enabled" : "disabled"));
-            this.getLogger().info(TextFormat.GREEN + "[Config] Full inventory action: " + fullInventoryAction);
+        if (loaded.isConfigLoggingEnabled()) {
+            this.getLogger().info(TextFormat.GREEN + "[Config] Auto-pickup: " + (loaded.isAutoPickupEnabled() ? "enabled" : "disabled"));
+            this.getLogger().info(TextFormat.GREEN + "[Config] Full inventory action: " + loaded.getFullInventoryAction());
             this.getLogger().info(TextFormat.GREEN + "[Config] Console logging: enabled");
-            this.getLogger().info(TextFormat.GREEN + "[Config] Disabled worlds: " + disabledWorlds.size());
-            this.getLogger().info(TextFormat.GREEN + "[Config] Effects: " + (particlesEnabled || soundsEnabled ? "enabled" : "disabled"));
-            this.getLogger().info(TextFormat.GREEN + "[Config] Durability multiplier: " + durabilityMultiplier + "x");
+            this.getLogger().info(TextFormat.GREEN + "[Config] Disabled worlds: " + loaded.getDisabledWorldCount());
+            this.getLogger().info(TextFormat.GREEN + "[Config] Effects: " + (loaded.isParticlesEnabled() || loaded.isSoundsEnabled() ? "enabled" : "disabled"));
+            this.getLogger().info(TextFormat.GREEN + "[Config] Durability multiplier: " + loaded.getDurabilityMultiplier() + "x");
+            this.getLogger().info(TextFormat.GREEN + "[Config] Search mode: " + loaded.getSearchMode().name().toLowerCase());
+            this.getLogger().info(TextFormat.GREEN + "[Config] Tiers: " + loaded.getTiers().size() + ", world overrides: " + loaded.getWorldOverrideCount());
+            BlockRegistry registry = loaded.getBlockRegistry();
+            this.getLogger().info(TextFormat.GREEN + "[Config] Loaded " + registry.size() + " vein-mineable blocks (" + registry.getTypeCount()
+                + " types) in " + String.format("%.2f", registry.getCompileNanos() / 1_000_000.0) + " ms");
         }
     }
     
-    public void reloadConfiguration() {
-        loadConfig();
-        VEIN_BLOCKS.clear();
-        TOOL_VALIDATION_CACHE.clear();
-        loadVeinBlocks();
+    /**
+     * Reload the configuration without blocking the main thread
+     * The config and block definition files are parsed and compiled into a new snapshot asynchronously, then swapped in on the
+     * main thread. If reloads overlap, only the newest one is applied.
+     * @param onComplete Run on the main thread once the new settings are live (may be null)
+     */
+    public void reloadConfiguration(Runnable onComplete) {
+        final int generation = reloadGeneration.incrementAndGet();
+        final File configFile = new File(this.getDataFolder(), "config.yml");
+        final File blocksFile = new File(this.getDataFolder(), BLOCKS_FILE);
+        
+        this.getServer().getScheduler().scheduleAsyncTask(this, new AsyncTask() {
+            @Override
+            public void onRun() {
+                VeinMinerSettings loaded = VeinMinerSettings.fromConfig(new Config(configFile, Config.YAML), new Config(blocksFile, Config.YAML));
+                getServer().getScheduler().scheduleTask(VeinMinerPlugin.this, () -> {
+                    if (generation == reloadGeneration.get()) {
+                        applySettings(loaded);
+                    }
+                    if (onComplete != null) {
+                        onComplete.run();
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Publish a new settings snapshot and let components drop state derived from the old one (main thread only)
+     * @param loaded The new settings
+     */
+    private void applySettings(VeinMinerSettings loaded) {
+        settings = loaded;
+        logSettings(loaded);
+        veinCache.clear();
+        oreIndex.clear();
+        // The pool is recreated with the new thread count on the next large search
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+        previewManager.restart();
+        profileManager.restart();
+    }
+    
+    /**
+     * Drop all cached veins (e.g. after the search strategy changed)
+     */
+    public void clearVeinCache() {
+        veinCache.clear();
+    }
+    
+    /**
+     * @return The current settings snapshot, read once per operation for a consistent view
+     */
+    public VeinMinerSettings getSettings() {
+        return settings;
     }
     
     public StatisticsTracker getStatsTracker() {
         return statsTracker;
     }
     
+    public ProfileManager getProfileManager() {
+        return profileManager;
+    }
+    
+    public PreferenceStore getPreferenceStore() {
+        return preferenceStore;
+    }
+    
+    public UndoJournal getUndoJournal() {
+        return undoJournal;
+    }
+    
+    public ProtectionService getProtectionService() {
+        return protectionService;
+    }
+    
+    boolean isConfigLoggingEnabled() {
+        return settings.isConfigLoggingEnabled();
+    }
+    
     /**
-     * Load all vein-mineable block types into static cache
+     * Check if a block type is vein-mineable
+     * @param blockId Block identifier
+     * @return true if the block is in the block registry
      */
-    private void loadVeinBlocks() {
-        // Only load blocks that are enabled in config
-        
-        // Ores
-        if (oresEnabled && isBlockEnabled("COAL_ORE")) {
-            VEIN_BLOCKS.add("minecraft:coal_ore");
-        }
-        if (oresEnabled && isBlockEnabled("IRON_ORE")) {
-            VEIN_BLOCKS.add("minecraft:iron_ore");
-        }
-        if (oresEnabled && isBlockEnabled("GOLD_ORE")) {
-            VEIN_BLOCKS.add("minecraft:gold_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DIAMOND_ORE")) {
-            VEIN_BLOCKS.add("minecraft:diamond_ore");
-        }
-        if (oresEnabled && isBlockEnabled("EMERALD_ORE")) {
-            VEIN_BLOCKS.add("minecraft:emerald_ore");
-        }
-        if (oresEnabled && isBlockEnabled("LAPIS_ORE")) {
-            VEIN_BLOCKS.add("minecraft:lapis_ore");
-        }
-        if (oresEnabled && isBlockEnabled("REDSTONE_ORE")) {
-            VEIN_BLOCKS.add("minecraft:redstone_ore");
-            VEIN_BLOCKS.add("minecraft:lit_redstone_ore"); // Both states
-        }
-        if (oresEnabled && isBlockEnabled("COPPER_ORE")) {
-            VEIN_BLOCKS.add("minecraft:copper_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_COAL_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_coal_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_IRON_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_iron_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_GOLD_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_gold_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_DIAMOND_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_diamond_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_EMERALD_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_emerald_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_LAPIS_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_lapis_ore");
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_REDSTONE_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_redstone_ore");
-            VEIN_BLOCKS.add("minecraft:lit_deepslate_redstone_ore"); // Both states
-        }
-        if (oresEnabled && isBlockEnabled("DEEPSLATE_COPPER_ORE")) {
-            VEIN_BLOCKS.add("minecraft:deepslate_copper_ore");
-        }
-        if (oresEnabled && isBlockEnabled("QUARTZ_ORE")) {
-            VEIN_BLOCKS.add("minecraft:quartz_ore");
-        }
-        if (oresEnabled && isBlockEnabled("NETHER_GOLD_ORE")) {
-            VEIN_BLOCKS.add("minecraft:nether_gold_ore");
-        }
-        // Ancient debris - special case (doesn't contain "_ore")
-        if (oresEnabled) {
-            VEIN_BLOCKS.add("minecraft:ancient_debris");
-        }
-        // Amethyst clusters
-        if (oresEnabled && isBlockEnabled("AMETHYST_CLUSTER")) {
-            VEIN_BLOCKS.add("minecraft:amethyst_cluster");
-            VEIN_BLOCKS.add("minecraft:large_amethyst_bud");
-            VEIN_BLOCKS.add("minecraft:medium_amethyst_bud");
-            VEIN_BLOCKS.add("minecraft:small_amethyst_bud");
-        }
-        
-        // Logs (natural tree logs only)
-        if (logsEnabled && isBlockEnabled("LOG")) {
-            VEIN_BLOCKS.add("minecraft:oak_log");
-            VEIN_BLOCKS.add("minecraft:spruce_log");
-            VEIN_BLOCKS.add("minecraft:birch_log");
-            VEIN_BLOCKS.add("minecraft:jungle_log");
-        }
-        if (logsEnabled && isBlockEnabled("LOG2")) {
-            VEIN_BLOCKS.add("minecraft:acacia_log");
-            VEIN_BLOCKS.add("minecraft:dark_oak_log");
-        }
-        if (logsEnabled && isBlockEnabled("MANGROVE_LOG")) {
-            VEIN_BLOCKS.add("minecraft:mangrove_log");
-        }
-        if (logsEnabled && isBlockEnabled("CHERRY_LOG")) {
-            VEIN_BLOCKS.add("minecraft:cherry_log");
-        }
-        if (logsEnabled && isBlockEnabled("CRIMSON_STEM")) {
-            VEIN_BLOCKS.add("minecraft:crimson_stem");
-        }
-        if (logsEnabled && isBlockEnabled("WARPED_STEM")) {
-            VEIN_BLOCKS.add("minecraft:warped_stem");
-        }
-        
-        // Leaves
-        if (leavesEnabled && isBlockEnabled("LEAVES")) {
-            VEIN_BLOCKS.add("minecraft:oak_leaves");
-            VEIN_BLOCKS.add("minecraft:spruce_leaves");
-            VEIN_BLOCKS.add("minecraft:birch_leaves");
-            VEIN_BLOCKS.add("minecraft:jungle_leaves");
-        }
-        if (leavesEnabled && isBlockEnabled("LEAVES2")) {
-            VEIN_BLOCKS.add("minecraft:acacia_leaves");
-            VEIN_BLOCKS.add("minecraft:dark_oak_leaves");
-        }
-        if (leavesEnabled && isBlockEnabled("MANGROVE_LEAVES")) {
-            VEIN_BLOCKS.add("minecraft:mangrove_leaves");
-        }
-        if (leavesEnabled && isBlockEnabled("CHERRY_LEAVES")) {
-            VEIN_BLOCKS.add("minecraft:cherry_leaves");
-        }
-
-        if (loggingEnabled && logConfigLoading) {
-            this.getLogger().info(TextFormat.GREEN + "[Config] Loaded " + VEIN_BLOCKS.size() + " vein-mineable block types");
-        }
+    boolean isVeinBlock(String blockId) {
+        return settings.isVeinBlock(blockId);
     }
     
     /**
-     * Check if a block is enabled in config
-     * @param blockName The block name from config
-     * @return true if enabled or not specified, false if explicitly disabled
+     * Check the player-level requirements for vein mining (permission, toggle, world)
+     * Sneaking and block/tool checks are left to the caller
+     * @param player The player to check
+     * @return true if the player may vein mine in their current world
      */
-    private boolean isBlockEnabled(String blockName) {
-        return configuredBlocks.getOrDefault(blockName.toUpperCase(), true);
+    boolean canVeinMine(Player player) {
+        return profileManager.getProfile(player).hasFlags(PlayerProfile.FLAGS_ALLOWED);
+    }
+    
+    /**
+     * Check if a player has toggled vein mining off with /vm off
+     * @param player The player to check
+     * @return true if toggled off
+     */
+    boolean isToggledOff(Player player) {
+        return preferenceStore.isDisabled(player);
     }
 
     /**
@@ -330,35 +296,30 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
             return;
         }
         
-        // Check permission
-        if (!player.hasPermission("veinminer.use")) {
+        // Break events fired for protection checks of vein blocks must not start another vein
+        if (protectionService.isFiringEvents()) {
             return;
         }
         
-        // Check if player has toggled vein mining off
-        if (veinMinerCommand != null && veinMinerCommand.isDisabled(player)) {
+        // PERFORMANCE: Permission, toggle, world and sneak state are kept as flags in the
+        // player's profile, so most breaks exit here after a single map read
+        PlayerProfile profile = profileManager.getProfile(player);
+        if (!profile.isEligible()) {
             return;
         }
         
-        // Check if world is disabled
-        if (disabledWorlds.contains(player.getLevel().getName())) {
-            return;
-        }
-        
-        // Check if player is sneaking (crouching)
-        if (!player.isSneaking()) {
-            return;
-        }
+        // Read the settings once so the whole vein is mined with one consistent snapshot
+        VeinMinerSettings settings = this.settings;
         
         // Check if the block is vein-mineable
         String blockId = block.getId();
-        if (!VEIN_BLOCKS.contains(blockId)) {
+        if (!settings.isVeinBlock(blockId)) {
             return;
         }
         
         // Check if player has the proper tool
         Item tool = player.getInventory().getItemInHand();
-        if (!isProperTool(blockId, tool)) {
+        if (!settings.isProperTool(blockId, tool)) {
             return;
         }
         
@@ -371,29 +332,105 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
             }
         }
         
+        // Check the player's blocks-per-second limit before paying for the search
+        if (!profile.hasBudget()) {
+            return;
+        }
+        
         try {
-            // Find all connected blocks of the same type
-            Set<Block> vein = findVein(block);
+            // Reuse a recent search (preview or earlier break) covering this block
+            int searchLimit = profile.getSearchLimit();
+            VeinSearch.Mode searchMode = profile.getSearchMode();
+            VeinResult vein = veinCache.get(block, searchLimit, searchMode);
             
-            // SECURITY: Strictly enforce maxBlocks limit
-            if (vein != null && vein.size() > 1 && vein.size() <= maxBlocks) {
-                // Cancel the event to prevent normal drop behavior
-                event.setCancelled(true);
-                
-                // Log vein mining activation
-                if (loggingEnabled && logVeinMining) {
-                    this.getLogger().info(TextFormat.YELLOW + "[VeinMine] Player: " + player.getName() + 
-                        " | Block: " + blockId + " | Vein size: " + vein.size());
+            if (vein == null) {
+                // Find all connected blocks of the same type
+                vein = findVein(block, settings, searchLimit, searchMode, profile.isAsyncEligible());
+            } else if (vein.size() > profile.getMaxBlocks() && searchMode == VeinSearch.Mode.NEAREST) {
+                // Cached veins are ordered around their original origin, re-order around this block
+                vein = vein.orderedByDistance();
+            }
+            
+            if (vein != null && vein.size() > 1) {
+                // Let other plugins veto or shrink the vein; one event per vein, positions are not copied
+                // SECURITY: Strictly enforce maxBlocks limit (scaled down under server load), oversized veins
+                // are mined in chunks and the rest stays cached for the next break
+                int candidates = Math.min(vein.size(), loadController.scaleVeinSize(profile.getMaxBlocks()));
+                VeinMinePreEvent preEvent = new VeinMinePreEvent(player, vein.getLevel(), vein.getType(), vein.toPositions(candidates), tool,
+                    veinSeed(vein));
+                this.getServer().getPluginManager().callEvent(preEvent);
+                if (preEvent.isCancelled() || preEvent.getLimit() < 2) {
+                    return;
                 }
                 
-                // Record statistics
-                statsTracker.recordVeinMine(player, vein.size());
+                // PERFORMANCE: All vein mining together stays within the per-tick break budget
+                int budget = loadController.claimTickBudget(preEvent.getLimit());
+                if (budget < 2) {
+                    loadController.refundTickBudget(budget);
+                    return;
+                }
+                int mineCount = budget;
                 
-                // Send message
-                player.sendTip(TextFormat.GOLD + "Vein Mining: " + TextFormat.WHITE + vein.size() + " blocks");
+                // SECURITY: Claims and regions are checked for every vein block, in bulk where supported
+                BitSet allowed = protectionService.check(player, vein, mineCount, tool, settings.getProtectionBreakEvents());
+                if (allowed.cardinality() < 2) {
+                    // A denied vein must not starve other players for the rest of the tick
+                    loadController.refundTickBudget(budget);
+                    return;
+                }
                 
-                // Process the vein mining
-                processVeinMining(player, vein, tool);
+                // SECURITY: Reserve the blocks so overlapping veins (other players, or this player again)
+                // never break, drop or charge durability for a block twice; blocks held elsewhere are skipped
+                ReservationTable.Reservation reservation = reservations.claim(vein, mineCount, allowed);
+                int brokenBlocks = 0;
+                try {
+                    if (!allowed.get(0) || allowed.cardinality() < 2) {
+                        return;
+                    }
+                    
+                    // The rate limit is only charged for blocks that passed protection and reservation
+                    int granted = profile.claimBlocks(allowed.cardinality());
+                    if (granted < 2) {
+                        profile.refundBlocks(granted);
+                        return;
+                    }
+                    if (granted < allowed.cardinality()) {
+                        // Mine up to the last granted block, the rest stays cached for the next break
+                        int last = -1;
+                        for (int k = 0; k < granted; k++) {
+                            last = allowed.nextSetBit(last + 1);
+                        }
+                        mineCount = last + 1;
+                        allowed.clear(mineCount, allowed.length());
+                    }
+                    
+                    // Cancel the event to prevent normal drop behavior
+                    event.setCancelled(true);
+                    
+                    // Log vein mining activation
+                    if (settings.isVeinMiningLogged()) {
+                        this.getLogger().info(TextFormat.YELLOW + "[VeinMine] Player: " + player.getName() + 
+                            " | Block: " + blockId + " | Vein size: " + mineCount + " | Seed: " + preEvent.getSeed());
+                    }
+                    
+                    // Process the vein mining
+                    MiningResult result = processVeinMining(player, vein, mineCount, allowed, tool, profile.getDurabilityMultiplier(),
+                        preEvent.getSeed(), settings);
+                    
+                    // Record statistics and send message, counting only the blocks that actually broke
+                    if (result.blocksMined > 0) {
+                        statsTracker.recordVeinMine(player, result.blocksMined, vein.getType());
+                        player.sendTip(TextFormat.GOLD + "Vein Mining: " + TextFormat.WHITE + result.blocksMined + " blocks");
+                    }
+                    // Blocks skipped because they changed or the tool wore out are not charged
+                    profile.refundBlocks(granted - result.blocksMined);
+                    brokenBlocks = result.blocksMined;
+                    veinCache.storeRemainder(vein, result.consumed, searchLimit, searchMode);
+                } finally {
+                    reservation.release();
+                    // Budget of blocks held elsewhere, over the rate limit or not broken goes back to this tick
+                    loadController.refundTickBudget(budget - brokenBlocks);
+                }
             }
         } catch (Exception e) {
             this.getLogger().error("Error during vein mining: " + e.getMessage());
@@ -403,92 +440,162 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
     }
     
     /**
-     * Process the mining of all blocks in a vein
+     * Process the mining of the first blocks of a vein
      * @param player The player mining the vein
-     * @param vein Set of blocks in the vein
+     * @param vein The vein, origin first
+     * @param mineCount Number of positions to mine from the front of the vein
+     * @param allowed Positions the player may break (protection checks)
      * @param tool The tool being used
+     * @param durabilityMultiplier Durability cost per block for this player
+     * @param seed Random seed of the vein
+     * @param settings Settings snapshot for this vein
+     * @return Positions processed from the front of the vein and blocks actually broken
      */
-    private void processVeinMining(Player player, Set<Block> vein, Item tool) {
+    private MiningResult processVeinMining(Player player, VeinResult vein, int mineCount, BitSet allowed, Item tool, double durabilityMultiplier,
+                                           long seed, VeinMinerSettings settings) {
         int itemsNotPickedUp = 0;
         int totalXP = 0;
         boolean toolBroken = false;
         int blocksMined = 0;
-        
-        // Calculate max blocks we can mine with remaining durability
-        int maxMinableBlocks = vein.size();
-        if (tool.getMaxDurability() > 0) {
-            int remainingDurability = tool.getMaxDurability() - tool.getDamage();
-            int durabilityPerBlock = Math.max(1, (int) Math.round(durabilityMultiplier));
-            maxMinableBlocks = Math.min(vein.size(), remainingDurability / durabilityPerBlock);
-        }
-        
-        // Break all blocks in the vein (including the original)
-        for (Block veinBlock : vein) {
-            // SECURITY: Stop if we've reached durability limit
+        int consumed = 0;
+        Level level = vein.getLevel();
+        
+        // One seeded random source per vein drives durability, drop sampling and Fortune, so those rolls can be replayed
+        SplittableRandom random = new SplittableRandom(seed);
+        
+        // PERFORMANCE: Durability (fractional cost, Unbreaking) and enchantments are resolved once for the
+        // whole vein; the loop below only counts mined blocks and the final damage is applied once
+        ToolOutcome outcome = ToolOutcome.compute(tool, allowed.cardinality(), durabilityMultiplier,
+            settings.isDurabilityEnabled(), random);
+        int maxMinableBlocks = outcome.getMinableBlocks();
+        
+        // PERFORMANCE: Drops and XP are resolved once per vein from the broken block instead of per block
+        long origin = vein.getOrigin();
+        Block prototype = level.getBlock(PackedPos.x(origin), PackedPos.y(origin), PackedPos.z(origin));
+        DropTable drops = DropTable.build(prototype, vein.getType(), tool, outcome,
+            Math.min(maxMinableBlocks, allowed.cardinality()), random);
+        LongArrayList mined = new LongArrayList(Math.min(mineCount, maxMinableBlocks));
+        // Block states of the mined positions for the undo journal
+        int[] minedStates = settings.isUndoEnabled() ? new int[Math.min(mineCount, maxMinableBlocks)] : null;
+        
+        // PERFORMANCE: Inventory changes are collected as dirty slots and sent once after the vein
+        InventoryBatch inventory = new InventoryBatch(player);
+        
+        // PERFORMANCE: Ground drops are merged into full stacks and spawned at one location
+        GroundDrops ground = settings.getGroundDropLocation() == GroundDrops.Location.BLOCK ? null : new GroundDrops();
+        
+        // Break the blocks in the vein (including the original)
+        for (int i = 0; i < mineCount; i++) {
+            // SECURITY: Stop once the tool is worn out
             if (blocksMined >= maxMinableBlocks) {
                 break;
             }
             
-            // Check if tool is broken before processing each block
-            if (tool.getMaxDurability() > 0 && tool.getDamage() >= tool.getMaxDurability()) {
-                toolBroken = true;
-                break;
+            // Skip protected blocks
+            if (!allowed.get(i)) {
+                consumed++;
+                continue;
             }
             
+            // Fetch the current block so stale (cached) positions are verified
+            long pos = vein.getPosition(i);
+            Block veinBlock = level.getBlock(PackedPos.x(pos), PackedPos.y(pos), PackedPos.z(pos));
+            consumed++;
+            int stateHash = minedStates != null && veinBlock != null ? veinBlock.getBlockState().blockStateHash() : 0;
+            
             // Process block drops and effects
-            Map<String, Object> result = processBlockBreak(player, veinBlock, tool);
-            boolean blockActuallyBroken = (boolean) result.get("success");
+            // PERFORMANCE: Primitive result, nothing is allocated per block
+            int notPickedUp = processBlockBreak(player, veinBlock, vein.getType(), drops, inventory, ground, settings);
             
             // SECURITY: Only count XP and items if block was actually broken
-            if (blockActuallyBroken) {
-                itemsNotPickedUp += (int) result.get("itemsNotPickedUp");
-                totalXP += (int) result.get("xp");
+            if (notPickedUp >= 0) {
+                itemsNotPickedUp += notPickedUp;
+                totalXP += drops.rollXp();
+                if (minedStates != null) {
+                    minedStates[blocksMined] = stateHash;
+                }
                 blocksMined++;
+                mined.add(pos);
             }
             
-            // Apply tool durability with multiplier
-            if (tool.getMaxDurability() > 0) {
-                int durabilityDamage = (int) Math.max(1, Math.round(durabilityMultiplier));
-                tool.setDamage(tool.getDamage() + durabilityDamage);
-                
-                // Check if tool broke
-                if (tool.getDamage() >= tool.getMaxDurability()) {
-                    player.getInventory().setItemInHand(Item.get("minecraft:air"));
-                    // Send slot update to prevent network issues
-                    player.getInventory().sendSlot(player.getInventory().getHeldItemIndex(), player);
-                    player.getLevel().addSound(player, Sound.RANDOM_BREAK);
-                    toolBroken = true;
-                    break;
-                }
+        }
+        
+        // Apply the precomputed durability for the blocks actually mined
+        if (outcome.usesDurability() && blocksMined > 0) {
+            int heldSlot = player.getInventory().getHeldItemIndex();
+            if (outcome.breaksAfter(blocksMined)) {
+                inventory.setItem(heldSlot, Item.get("minecraft:air"));
+                player.getLevel().addSound(player, Sound.RANDOM_BREAK);
+                toolBroken = true;
+            } else {
+                tool.setDamage(outcome.getDamageAfter(blocksMined));
+                inventory.setItem(heldSlot, tool);
             }
         }
         
+        // Send drops and the tool update as one minimal set of slot updates
+        inventory.flush();
+        
+        if (ground != null && !ground.isEmpty()) {
+            spawnGroundDrops(player, level, prototype, ground, settings);
+        }
+        
         // Spawn experience orbs
         if (totalXP > 0 && blocksMined > 0) {
             player.getLevel().dropExpOrb(player.getLocation(), totalXP);
         }
         
-        // Play sound effect
-        if (soundsEnabled && !toolBroken && blocksMined > 0) {
-            player.getLevel().addSound(player, Sound.RANDOM_LEVELUP, 1.0f, 1.5f);
+        // Record what was removed so admins can roll the vein back
+        if (minedStates != null) {
+            undoJournal.record(player, level, mined, minedStates);
         }
         
+        // PERFORMANCE: Particles and the vein sound are batched and sent once per tick within a budget
+        // (a broken tool already played its own sound)
+        effectsBatcher.queueVein(player, level, prototype, mined, !toolBroken, settings);
+        
         // Send inventory full message if needed
         if (itemsNotPickedUp > 0) {
-            sendInventoryFullMessage(player, itemsNotPickedUp);
+            sendInventoryFullMessage(player, itemsNotPickedUp, settings);
         }
         
+        this.getServer().getPluginManager().callEvent(new VeinMinePostEvent(player, level, vein.getType(),
+            vein.toPositions(consumed), blocksMined, totalXP, itemsNotPickedUp, toolBroken));
+        
         // Log tool break
-        if (toolBroken && loggingEnabled && logVeinMining) {
+        if (toolBroken && settings.isVeinMiningLogged()) {
             this.getLogger().info(TextFormat.RED + "[VeinMine] Player " + player.getName() + 
                 "'s tool broke during vein mining (mined " + blocksMined + " blocks)");
         }
         
-        // Update tool in inventory if not broken
-        if (!toolBroken && tool.getMaxDurability() > 0) {
-            player.getInventory().setItemInHand(tool);
-            // Send slot update to prevent network ID mismatch
-            player.getInventory().sendSlot(player.getInventory().getHeldItemIndex(), player);
+        return new MiningResult(consumed, blocksMined);
+    }
+    
+    /**
+     * Derive the random seed of a new vein from the world seed, the origin and the vein counter
+     * @param vein The vein about to be mined
+     * @return Seed, logged with the vein and replaceable through {@link VeinMinePreEvent#setSeed(long)}
+     */
+    private long veinSeed(VeinResult vein) {
+        long seed = vein.getLevel().getSeed() ^ (vein.getOrigin() * 0x9E3779B97F4A7C15L) ^ (++veinCounter * 0xC2B2AE3D27D4EB4FL);
+        // Finalizer of SplitMix64, spreads the inputs over all bits
+        seed = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94D049BB133111EBL;
+        return seed ^ (seed >>> 31);
+    }
+    
+    /**
+     * Outcome of one vein job
+     */
+    private static final class MiningResult {
+        // Positions processed from the front of the vein
+        private final int consumed;
+        // Blocks actually broken
+        private final int blocksMined;
+        
+        MiningResult(int consumed, int blocksMined) {
+            this.consumed = consumed;
+            this.blocksMined = blocksMined;
         }
     }
     
@@ -496,67 +603,51 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
      * Process a single block break within vein mining
      * @param player The player mining
      * @param veinBlock The block to break
-     * @param tool The tool being used
-     * @return Map containing itemsNotPickedUp and xp
+     * @param expectedType The block type the vein was computed for
+     * @param dropTable Drops and XP of the vein
+     * @param inventory Batched inventory writes of the vein
+     * @param ground Merged ground drops of the vein, or null to drop at the block
+     * @param settings Settings snapshot for this vein
+     * @return Number of items not picked up, or -1 if the block was not broken (the caller rolls the XP)
      */
-    private Map<String, Object> processBlockBreak(Player player, Block veinBlock, Item tool) {
-        int itemsNotPickedUp = 0;
-        int xp = 0;
-        boolean success = false;
-        
+    private int processBlockBreak(Player player, Block veinBlock, BlockType expectedType, DropTable dropTable,
+                                  InventoryBatch inventory, GroundDrops ground, VeinMinerSettings settings) {
         try {
-            // SECURITY: Verify block still exists and hasn't been modified
-            if (veinBlock == null || veinBlock.getLevel() == null) {
-                Map<String, Object> result = new HashMap<>(3);
-                result.put("itemsNotPickedUp", 0);
-                result.put("xp", 0);
-                result.put("success", false);
-                return result;
+            // SECURITY: Verify block still exists and hasn't been modified since the search
+            BlockType currentType = veinBlock == null ? null : settings.getBlockType(veinBlock.getId());
+            if (currentType == null || veinBlock.getLevel() == null || currentType.getId() != expectedType.getId()) {
+                return -1;
             }
             
-            // Get drops (this respects Fortune/Silk Touch enchantments)
-            Item[] drops = veinBlock.getDrops(tool);
-            
-            // Show particle effect
-            if (particlesEnabled) {
-                veinBlock.getLevel().addParticle(new cn.nukkit.level.particle.DestroyBlockParticle(
-                    veinBlock.add(0.5, 0.5, 0.5), veinBlock));
-            }
+            // Draw drops from the vein's table (Fortune/Silk Touch already resolved)
+            Item[] drops = dropTable.rollDrops();
             
             // Handle item drops
-            itemsNotPickedUp = handleItemDrops(player, veinBlock, drops);
+            int itemsNotPickedUp = handleItemDrops(inventory, ground, veinBlock, drops, settings);
             
             // Break the block
-            boolean blockBroken = veinBlock.getLevel().setBlock(veinBlock, Block.get("minecraft:air"), true, true);
-            
-            // SECURITY: Only grant XP if block was actually broken
-            if (blockBroken) {
-                xp = veinBlock.getDropExp();
-                success = true;
+            if (!veinBlock.getLevel().setBlock(veinBlock, Block.get("minecraft:air"), true, true)) {
+                return -1;
             }
-            
+            oreIndex.onBlockRemoved(veinBlock.getLevel(), veinBlock.getFloorX(), veinBlock.getFloorY(), veinBlock.getFloorZ());
+            return itemsNotPickedUp;
         } catch (Exception e) {
             this.getLogger().warning("Error processing block break at " + veinBlock.getLocation() + ": " + e.getMessage());
+            return -1;
         }
-        
-        // Use initial capacity for better performance
-        Map<String, Object> result = new HashMap<>(3);
-        result.put("itemsNotPickedUp", itemsNotPickedUp);
-        result.put("xp", xp);
-        result.put("success", success);
-        return result;
     }
     
     /**
      * Handle item drops from broken block
-     * @param player The player
+     * @param inventory Batched inventory writes of the vein
+     * @param ground Merged ground drops of the vein, or null to drop at the block
      * @param block The block location
      * @param drops Array of dropped items
+     * @param settings Settings snapshot for this vein
      * @return Number of items not picked up
      */
-    private int handleItemDrops(Player player, Block block, Item[] drops) {
+    private int handleItemDrops(InventoryBatch inventory, GroundDrops ground, Block block, Item[] drops, VeinMinerSettings settings) {
         int itemsNotPickedUp = 0;
-        boolean inventoryChanged = false;
         
         // Check if drops array is null or empty
         if (drops == null || drops.length == 0) {
@@ -569,249 +660,213 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
                 continue;
             }
             
-            if (autoPickupEnabled) {
-                // Try to add to inventory
-                if (!player.getInventory().canAddItem(drop)) {
+            if (settings.isAutoPickupEnabled()) {
+                // Try to add to inventory (slots are sent once after the vein)
+                Item leftover = inventory.add(drop);
+                if (leftover != null) {
                     // Inventory is full
-                    if (fullInventoryAction.equals("drop")) {
-                        block.getLevel().dropItem(block, drop);
+                    if (settings.isDropWhenFull()) {
+                        dropToGround(ground, block, leftover);
                     }
                     // If "delete", just don't add it anywhere
                     itemsNotPickedUp++;
-                } else {
-                    // Add item and track if inventory changed
-                    Item[] notAdded = player.getInventory().addItem(drop);
-                    if (notAdded.length > 0) {
-                        // Some items couldn't be added, drop them
-                        for (Item leftover : notAdded) {
-                            if (fullInventoryAction.equals("drop")) {
-                                block.getLevel().dropItem(block, leftover);
-                            }
-                            itemsNotPickedUp++;
-                        }
-                    } else {
-                        inventoryChanged = true;
-                    }
                 }
             } else {
                 // Drop to ground if auto-pickup is disabled
-                block.getLevel().dropItem(block, drop);
+                dropToGround(ground, block, drop);
             }
         }
         
-        // Send inventory update once at the end, not for every item
-        if (inventoryChanged) {
-            player.getInventory().sendContents(player);
+        return itemsNotPickedUp;
+    }
+    
+    private void dropToGround(GroundDrops ground, Block block, Item item) {
+        if (ground != null) {
+            ground.add(item);
+        } else {
+            block.getLevel().dropItem(block, item);
+        }
+    }
+    
+    /**
+     * Spawn the merged ground drops of a vein, optionally after a delay
+     * @param player The player who mined the vein
+     * @param level The vein's level
+     * @param origin The broken block
+     * @param ground Merged ground drops
+     * @param settings Settings snapshot for this vein
+     */
+    private void spawnGroundDrops(Player player, Level level, Block origin, GroundDrops ground, VeinMinerSettings settings) {
+        boolean atPlayer = settings.getGroundDropLocation() == GroundDrops.Location.PLAYER;
+        Vector3 originCenter = new Vector3(origin.getFloorX() + 0.5, origin.getFloorY() + 0.5, origin.getFloorZ() + 0.5);
+        int delay = settings.getGroundDropDelayTicks();
+        if (delay <= 0) {
+            ground.spawn(level, atPlayer ? player.getPosition() : originCenter);
+            return;
         }
         
-        return itemsNotPickedUp;
+        Runnable drop = new Runnable() {
+            @Override
+            public void run() {
+                // Runs once, from the task or from onDisable
+                if (!pendingGroundDrops.remove(this)) {
+                    return;
+                }
+                // The player may have left or changed worlds in the meantime
+                boolean playerHere = atPlayer && player.isOnline() && player.getLevel() == level;
+                ground.spawn(level, playerHere ? player.getPosition() : originCenter);
+            }
+        };
+        pendingGroundDrops.add(drop);
+        this.getServer().getScheduler().scheduleDelayedTask(this, drop, delay);
     }
     
     /**
      * Send inventory full message to player
      * @param player The player
      * @param count Number of items not picked up
+     * @param settings Settings snapshot for this vein
      */
-    private void sendInventoryFullMessage(Player player, int count) {
-        if (!inventoryFullMessage.isEmpty()) {
-            String action = fullInventoryAction.equals("drop") ? "dropped" : "deleted";
-            String message = TextFormat.colorize('&', inventoryFullMessage
+    private void sendInventoryFullMessage(Player player, int count, VeinMinerSettings settings) {
+        String action = settings.isDropWhenFull() ? "dropped" : "deleted";
+        if (!settings.getInventoryFullMessage().isEmpty()) {
+            String message = TextFormat.colorize('&', settings.getInventoryFullMessage()
                 .replace("{count}", String.valueOf(count))
                 .replace("{action}", action));
             player.sendMessage(message);
         }
         
-        if (loggingEnabled && logVeinMining) {
-            String action = fullInventoryAction.equals("drop") ? "dropped" : "deleted";
+        if (settings.isVeinMiningLogged()) {
             this.getLogger().info(TextFormat.YELLOW + "[VeinMine] Player " + player.getName() + 
                 " had full inventory: " + count + " items " + action);
         }
     }
 
     /**
-     * Find all connected blocks of the same type using BFS (Breadth-First Search)
-     * Optimized to cache block positions as strings instead of Block objects
-     * @param startBlock The initial block to start from
-     * @return Set of blocks in the vein
+     * Get the vein containing a block, reusing a cached search when possible
+     * Fresh searches are cached so a following break can reuse them
+     * @param startBlock The block to start from
+     * @param limit Maximum number of blocks to search
+     * @param mode Search mode
+     * @param async true if the search may use worker threads (the player's tier allows it)
+     * @return The vein rooted at the block
      */
-    private Set<Block> findVein(Block startBlock) {
-        if (startBlock == null || startBlock.getLevel() == null) {
-            return Collections.emptySet();
+    VeinResult getVein(Block startBlock, int limit, VeinSearch.Mode mode, boolean async) {
+        VeinResult vein = veinCache.get(startBlock, limit, mode);
+        if (vein == null) {
+            vein = findVein(startBlock, settings, limit, mode, async);
+            veinCache.put(vein, limit, mode);
         }
-        
-        Set<Block> vein = new HashSet<>();
-        Set<String> visitedPositions = new HashSet<>(); // Cache positions as "x,y,z"
-        Queue<Block> queue = new ArrayDeque<>(); // Faster than LinkedList
-        queue.add(startBlock);
-        
-        String blockId = startBlock.getId();
-        cn.nukkit.level.Level level = startBlock.getLevel();
-        
-        // PERFORMANCE: Pre-allocate StringBuilder for position keys
-        StringBuilder posKeyBuilder = new StringBuilder(16);
-        
-        while (!queue.isEmpty() && vein.size() < maxBlocks) {
-            Block current = queue.poll();
-            
-            if (current == null) {
-                continue;
-            }
-            
-            int cx = current.getFloorX();
-            int cy = current.getFloorY();
-            int cz = current.getFloorZ();
-            
-            // PERFORMANCE: Reuse StringBuilder for position keys
-            posKeyBuilder.setLength(0);
-            String posKey = posKeyBuilder.append(cx).append(',').append(cy).append(',').append(cz).toString();
-            
-            if (visitedPositions.contains(posKey)) {
-                continue;
+        return vein;
+    }
+
+    /**
+     * Find connected blocks of the same type
+     * A search strategy registered through the API takes precedence over the built-in search
+     * @param startBlock The initial block to start from
+     * @param settings Settings snapshot providing the block registry
+     * @param limit Maximum number of blocks to collect
+     * @param mode Search mode
+     * @param async true if the search may use worker threads (tiers with async: true)
+     * @return Vein rooted at the start block, or null for an invalid start block
+     */
+    public VeinResult findVein(Block startBlock, VeinMinerSettings settings, int limit, VeinSearch.Mode mode, boolean async) {
+        VeinSearchStrategy strategy = api == null ? null : api.getSearchStrategy();
+        if (strategy != null && startBlock != null && startBlock.getLevel() != null) {
+            BlockType type = settings.getBlockType(startBlock.getId());
+            if (type == null) {
+                return null;
             }
-            
-            // Check if this block is the same type
-            if (!current.getId().equals(blockId)) {
-                continue;
+            VeinPositions positions = strategy.search(startBlock, type, limit);
+            long origin = PackedPos.pack(startBlock.getFloorX(), startBlock.getFloorY(), startBlock.getFloorZ());
+            // Copied so the strategy can't change the vein later; the origin must come first
+            if (positions != null && !positions.isEmpty() && positions.getPacked(0) == origin) {
+                long[] packed = positions.toArray();
+                if (packed.length > limit) {
+                    packed = Arrays.copyOf(packed, limit);
+                }
+                VeinResult vein = new VeinResult(startBlock.getLevel(), type, packed, packed.length >= limit);
+                metrics.recordSearch(vein);
+                return vein;
             }
-            
-            vein.add(current);
-            visitedPositions.add(posKey);
-            
-            // SECURITY: Hard limit check to prevent infinite loops
-            if (vein.size() >= maxBlocks) {
-                break;
+        }
+        OreIndex index = oreIndex.isEnabled() ? oreIndex : null;
+        VeinResult vein;
+        // PERFORMANCE: Very large breadth-first searches of async tiers expand each level on all cores, with the same result
+        if (async && mode == VeinSearch.Mode.BREADTH_FIRST && settings.isParallelSearchEnabled() && limit >= settings.getParallelSearchMinLimit()
+                && startBlock != null && startBlock.getLevel() != null) {
+            BlockType type = settings.getBlockRegistry().get(startBlock.getId());
+            if (parallelSearch == null) {
+                parallelSearch = new ParallelVeinSearch(settings.getParallelSearchThreads());
             }
-            
-            // Check all 26 surrounding blocks (including diagonals) in a 3x3x3 cube
-            for (int dx = -NEIGHBOR_RANGE; dx <= NEIGHBOR_RANGE; dx++) {
-                for (int dy = -NEIGHBOR_RANGE; dy <= NEIGHBOR_RANGE; dy++) {
-                    for (int dz = -NEIGHBOR_RANGE; dz <= NEIGHBOR_RANGE; dz++) {
-                        // Skip center block
-                        if (dx == 0 && dy == 0 && dz == 0) {
-                            continue;
-                        }
-                        
-                        int nx = cx + dx;
-                        int ny = cy + dy;
-                        int nz = cz + dz;
-                        
-                        // PERFORMANCE: Reuse StringBuilder
-                        posKeyBuilder.setLength(0);
-                        String neighborPosKey = posKeyBuilder.append(nx).append(',').append(ny).append(',').append(nz).toString();
-                        
-                        if (visitedPositions.contains(neighborPosKey)) {
-                            continue;
-                        }
-                        
-                        // SECURITY: Prevent queue from growing too large
-                        if (queue.size() > maxBlocks * 2) {
-                            continue;
-                        }
-                        
-                        try {
-                            // PERFORMANCE: Direct block ID check without creating full Block object when possible
-                            Block neighbor = level.getBlock(nx, ny, nz);
-                            if (neighbor != null && blockId.equals(neighbor.getId())) {
-                                queue.add(neighbor);
-                            }
-                        } catch (Exception e) {
-                            // Skip invalid blocks
-                        }
-                    }
-                }
+            vein = type == null ? null : parallelSearch.breadthFirst(startBlock, settings.getBlockRegistry(), index, type, limit);
+            metrics.recordParallelSearch();
+            if (vein != null && settings.isParallelSearchVerify()) {
+                verifyParallelSearch(vein, startBlock, settings.getBlockRegistry(), index, type, limit);
             }
+        } else {
+            vein = VeinSearch.find(startBlock, settings.getBlockRegistry(), index, limit, mode);
         }
-        
+        metrics.recordSearch(vein);
         return vein;
     }
-
+    
     /**
-     * Check if the tool is appropriate for mining this block
-     * Uses caching to improve performance
-     * @param blockId The block identifier
-     * @param tool The tool item
-     * @return true if tool is valid for this block
+     * Repeat a parallel search on one core and report any difference (parallel-search.verify)
+     * The main thread is still blocked, so both searches see the same world.
      */
-    private boolean isProperTool(String blockId, Item tool) {
-        if (tool == null || blockId == null) {
-            return false;
-        }
-        
-        String toolId = tool.getId();
-        // Use StringBuilder for better performance with concatenation
-        String cacheKey = new StringBuilder(blockId.length() + toolId.length() + 1)
-            .append(blockId).append(':').append(toolId).toString();
-        
-        // Check cache first
-        Boolean cached = TOOL_VALIDATION_CACHE.get(cacheKey);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Calculate result
-        boolean result = false;
-        
-        // Ores and Ancient Debris require pickaxes
-        if (isOre(blockId) || blockId.equals("minecraft:ancient_debris")) {
-            result = isPickaxe(toolId);
-        }
-        // Logs require axes
-        else if (isLog(blockId)) {
-            result = isAxe(toolId);
+    private void verifyParallelSearch(VeinResult parallel, Block startBlock, BlockRegistry registry, OreIndex index, BlockType type, int limit) {
+        VeinResult sequential = VeinSearch.breadthFirst(startBlock, registry, index, type, limit);
+        int mismatch = -1;
+        if (sequential == null || sequential.size() != parallel.size()) {
+            mismatch = 0;
+        } else {
+            for (int i = 0; i < parallel.size(); i++) {
+                if (parallel.getPosition(i) != sequential.getPosition(i)) {
+                    mismatch = i;
+                    break;
+                }
+            }
         }
-        // Leaves can be broken with any tool or hand
-        else if (isLeaves(blockId)) {
-            result = true;
+        if (mismatch < 0 && sequential.isTruncated() == parallel.isTruncated()
+                && sequential.isUnloadedBorder() == parallel.isUnloadedBorder()) {
+            return;
         }
-        
-        // Cache the result
-        TOOL_VALIDATION_CACHE.put(cacheKey, result);
-        return result;
+        metrics.recordParallelMismatch();
+        this.getLogger().warning("Parallel search differs from the sequential search at " + startBlock.getFloorX() + ", " +
+            startBlock.getFloorY() + ", " + startBlock.getFloorZ() + " (" + type.getName() + ", limit " + limit + "): " +
+            parallel.size() + " vs " + (sequential == null ? 0 : sequential.size()) + " blocks" +
+            (mismatch > 0 ? ", first difference at position " + mismatch : ""));
     }
-
-    /**
-     * Check if block is an ore
-     * @param blockId Block identifier
-     * @return true if block is an ore
-     */
-    private boolean isOre(String blockId) {
-        return blockId.contains("_ore");
+    
+    public VeinMetrics getMetrics() {
+        return metrics;
     }
-
-    /**
-     * Check if block is a log or stem
-     * @param blockId Block identifier
-     * @return true if block is a log
-     */
-    private boolean isLog(String blockId) {
-        return blockId.contains("_log") || blockId.contains("_stem");
+    
+    ReservationTable getReservations() {
+        return reservations;
     }
-
-    /**
-     * Check if block is leaves
-     * @param blockId Block identifier
-     * @return true if block is leaves
-     */
-    private boolean isLeaves(String blockId) {
-        return blockId.contains("_leaves");
+    
+    public OreIndex getOreIndex() {
+        return oreIndex;
     }
-
-    /**
-     * Check if tool is a pickaxe
-     * @param toolId Tool identifier
-     * @return true if tool is a pickaxe
-     */
-    private boolean isPickaxe(String toolId) {
-        return toolId.contains("_pickaxe");
+    
+    public LoadController getLoadController() {
+        return loadController;
+    }
+    
+    public EffectsBatcher getEffectsBatcher() {
+        return effectsBatcher;
     }
 
     /**
-     * Check if tool is an axe
-     * @param toolId Tool identifier
-     * @return true if tool is an axe
+     * Check if the tool is appropriate for mining this block
+     * @param blockId The block identifier
+     * @param tool The tool item
+     * @return true if tool is valid for this block
      */
-    private boolean isAxe(String toolId) {
-        return toolId.contains("_axe");
+    boolean isProperTool(String blockId, Item tool) {
+        return settings.isProperTool(blockId, tool);
     }
     
     private boolean isNewerVersion(String current, String latest) {
@@ -841,7 +896,9 @@ public class VeinMinerPlugin extends PluginBase implements Listener {
      * Check for plugin updates from GitHub
      */
     private void checkForUpdates() {
-        this.getServer().getScheduler().scheduleAsyncTask(this, new cn.nukkit.scheduler.AsyncTask() {
+        final String githubRepo = settings.getGithubRepo();
+        final boolean loggingEnabled = settings.isLoggingEnabled();
+        this.getServer().getScheduler().scheduleAsyncTask(this, new AsyncTask() {
             @Override
             public void onRun() {
                 HttpURLConnection connection = null;
@@ -0,0 +1,707 @@
+package com.veinminer;
+
+import cn.nukkit.item.Item;
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the plugin configuration
+ * Built from a parsed config (off the main thread on reload) and published by swapping a single
+ * volatile reference, so readers always see one consistent set of settings and never a half-applied reload
+ */
+public final class VeinMinerSettings {
+
+    // Constants for magic numbers
+    private static final int DEFAULT_MAX_BLOCKS = 64;
+    private static final double DEFAULT_DURABILITY_MULTIPLIER = 1.0;
+    private static final int DEFAULT_SEARCH_MULTIPLIER = 1;
+    private static final int DEFAULT_PERMISSION_REFRESH_TICKS = 100;
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 64;
+    private static final int DEFAULT_CACHE_TTL_TICKS = 100;
+    private static final int DEFAULT_PREVIEW_INTERVAL_TICKS = 4;
+    private static final int DEFAULT_PREVIEW_MAX_PARTICLES = 48;
+    private static final int DEFAULT_PREVIEW_RANGE = 6;
+    private static final int DEFAULT_MAX_PARTICLES_PER_VEIN = 16;
+    private static final int DEFAULT_MAX_PARTICLES_PER_TICK = 64;
+    private static final double DEFAULT_ADAPTIVE_MSPT_LOW = 35.0;
+    private static final double DEFAULT_ADAPTIVE_MSPT_HIGH = 50.0;
+    private static final double DEFAULT_ADAPTIVE_MIN_SCALE = 0.25;
+    private static final double DEFAULT_ADAPTIVE_SMOOTHING = 0.3;
+    private static final int DEFAULT_BREAK_BUDGET_PER_TICK = 256;
+    private static final int DEFAULT_ORE_INDEX_MAX_CHUNKS = 2048;
+    private static final int DEFAULT_PARALLEL_SEARCH_MIN_LIMIT = 512;
+    private static final int DEFAULT_UNDO_MAX_SIZE_KB = 4096;
+    private static final int DEFAULT_UNDO_BLOCKS_PER_TICK = 64;
+    private static final double DEFAULT_XRAY_HALF_LIFE_MINUTES = 30.0;
+    private static final double DEFAULT_XRAY_Z_THRESHOLD = 4.0;
+    private static final int DEFAULT_XRAY_MIN_BLOCKS = 64;
+    private static final int DEFAULT_XRAY_COOLDOWN_MINUTES = 10;
+
+    // Limits
+    private final int maxBlocks;
+    private final int searchMultiplier;
+    private final VeinSearch.Mode searchMode;
+    private final double durabilityMultiplier;
+    private final boolean durabilityEnabled;
+    private final boolean sneakRequired;
+    private final int permissionRefreshTicks;
+
+    // Block registry (block id -> type, required tool and connectivity)
+    private final BlockRegistry blocks;
+
+    // Tiers and worlds
+    private final VeinTier defaultTier;
+    private final List<VeinTier> tiers;
+    private final Set<String> disabledWorlds;
+    private final Map<String, WorldOverride> worldOverrides;
+
+    // Drops
+    private final boolean autoPickupEnabled;
+    private final boolean dropWhenFull;
+    private final String fullInventoryAction;
+    private final GroundDrops.Location groundDropLocation;
+    private final int groundDropDelayTicks;
+
+    // Logging
+    private final boolean loggingEnabled;
+    private final boolean logVeinMining;
+    private final boolean logConfigLoading;
+
+    // Protection
+    private final ProtectionService.BreakEvents protectionBreakEvents;
+
+    // Effects
+    private final boolean particlesEnabled;
+    private final boolean soundsEnabled;
+    private final EffectsBatcher.ParticleMode particleMode;
+    private final int maxParticlesPerVein;
+    private final int maxParticlesPerTick;
+
+    // Preview
+    private final boolean previewEnabled;
+    private final int previewIntervalTicks;
+    private final int previewMaxParticles;
+    private final int previewRange;
+
+    // Vein cache
+    private final boolean cacheEnabled;
+    private final int cacheMaxEntries;
+    private final int cacheTtlTicks;
+
+    // Adaptive limits
+    private final boolean adaptiveEnabled;
+    private final double adaptiveMsptLow;
+    private final double adaptiveMsptHigh;
+    private final double adaptiveMinScale;
+    private final double adaptiveSmoothing;
+    private final int breakBudgetPerTick;
+
+    // Ore index
+    private final boolean oreIndexEnabled;
+    private final int oreIndexMaxChunks;
+
+    // Parallel search
+    private final boolean parallelSearchEnabled;
+    private final int parallelSearchMinLimit;
+    private final int parallelSearchThreads;
+    private final boolean parallelSearchVerify;
+
+    // Undo journal
+    private final boolean undoEnabled;
+    private final long undoMaxBytes;
+    private final int undoBlocksPerTick;
+
+    // X-ray alerts
+    private final boolean xrayAlertsEnabled;
+    private final long xrayHalfLifeMillis;
+    private final double xrayZThreshold;
+    private final int xrayMinBlocks;
+    private final long xrayCooldownMillis;
+
+    // Update checker
+    private final boolean updateCheckerEnabled;
+    private final String githubRepo;
+
+    // Messages and rewards
+    private final String inventoryFullMessage;
+    private final Map<Integer, List<String>> milestoneRewards;
+
+    // Problems found while building, logged once the snapshot is applied
+    private final List<String> warnings;
+
+    // Written by benchmarkLookups so its loops have an observable result
+    private static volatile long benchmarkSink;
+
+    private VeinMinerSettings(Config config, Config definitions) {
+        List<String> problems = new ArrayList<>();
+
+        // Validate and load max blocks
+        int max = config.getInt("max-blocks", DEFAULT_MAX_BLOCKS);
+        if (max < 1) {
+            problems.add("Invalid max-blocks value (" + max + "), using default: " + DEFAULT_MAX_BLOCKS);
+            max = DEFAULT_MAX_BLOCKS;
+        }
+        this.maxBlocks = max;
+
+        // Search past maxBlocks so the rest of an oversized vein can be cached for the next break
+        int multiplier = config.getInt("vein-cache.search-multiplier", DEFAULT_SEARCH_MULTIPLIER);
+        if (multiplier < 1) {
+            problems.add("Invalid vein-cache.search-multiplier value (" + multiplier + "), using default: " + DEFAULT_SEARCH_MULTIPLIER);
+            multiplier = DEFAULT_SEARCH_MULTIPLIER;
+        }
+        this.searchMultiplier = multiplier;
+
+        // Load search mode (which blocks of an oversized vein are mined first)
+        this.searchMode = VeinSearch.Mode.fromConfig(config.getString("search-mode", "breadth-first"), VeinSearch.Mode.BREADTH_FIRST);
+
+        // Load durability multiplier
+        double durability = config.getDouble("tool-durability.multiplier", DEFAULT_DURABILITY_MULTIPLIER);
+        if (durability < 0) {
+            problems.add("Invalid durability multiplier, using default: " + DEFAULT_DURABILITY_MULTIPLIER);
+            durability = DEFAULT_DURABILITY_MULTIPLIER;
+        }
+        this.durabilityMultiplier = durability;
+        this.durabilityEnabled = config.getBoolean("tool-durability.enabled", true);
+
+        this.sneakRequired = config.getBoolean("sneak-required", true);
+        this.permissionRefreshTicks = Math.max(20, config.getInt("permission-refresh-ticks", DEFAULT_PERMISSION_REFRESH_TICKS));
+
+        // Load auto-pickup settings
+        this.autoPickupEnabled = config.getBoolean("auto-pickup.enabled", true);
+        this.fullInventoryAction = config.getString("auto-pickup.full-inventory-action", "drop").toLowerCase();
+        this.dropWhenFull = fullInventoryAction.equals("drop");
+        String locationName = config.getString("ground-drops.location", "origin");
+        GroundDrops.Location location = GroundDrops.Location.fromConfig(locationName);
+        if (location == null) {
+            problems.add("Unknown ground-drops.location '" + locationName + "', using origin");
+            location = GroundDrops.Location.ORIGIN;
+        }
+        this.groundDropLocation = location;
+        this.groundDropDelayTicks = Math.max(0, config.getInt("ground-drops.delay-ticks", 0));
+
+        // Load logging settings
+        this.loggingEnabled = config.getBoolean("logging.enabled", true);
+        this.logVeinMining = config.getBoolean("logging.log-vein-mining", true);
+        this.logConfigLoading = config.getBoolean("logging.log-config-loading", true);
+
+        // Load protection
+        this.protectionBreakEvents = ProtectionService.BreakEvents.fromConfig(config.get("protection.fire-break-events"));
+
+        // Load effects
+        this.particlesEnabled = config.getBoolean("effects.particles", true);
+        this.soundsEnabled = config.getBoolean("effects.sounds", true);
+        String particleModeName = config.getString("effects.particle-mode", "perimeter");
+        EffectsBatcher.ParticleMode mode = EffectsBatcher.ParticleMode.fromConfig(particleModeName);
+        if (mode == null) {
+            problems.add("Unknown effects.particle-mode '" + particleModeName + "', using perimeter");
+            mode = EffectsBatcher.ParticleMode.PERIMETER;
+        }
+        this.particleMode = mode;
+        this.maxParticlesPerVein = Math.max(1, config.getInt("effects.max-particles-per-vein", DEFAULT_MAX_PARTICLES_PER_VEIN));
+        this.maxParticlesPerTick = Math.max(0, config.getInt("effects.max-particles-per-tick", DEFAULT_MAX_PARTICLES_PER_TICK));
+
+        // Load preview
+        this.previewEnabled = config.getBoolean("preview.enabled", false);
+        this.previewIntervalTicks = Math.max(1, config.getInt("preview.interval-ticks", DEFAULT_PREVIEW_INTERVAL_TICKS));
+        this.previewMaxParticles = Math.max(1, config.getInt("preview.max-particles", DEFAULT_PREVIEW_MAX_PARTICLES));
+        this.previewRange = Math.max(1, config.getInt("preview.range", DEFAULT_PREVIEW_RANGE));
+
+        // Load vein cache
+        this.cacheEnabled = config.getBoolean("vein-cache.enabled", true);
+        this.cacheMaxEntries = Math.max(1, config.getInt("vein-cache.max-entries", DEFAULT_CACHE_MAX_ENTRIES));
+        this.cacheTtlTicks = Math.max(1, config.getInt("vein-cache.ttl-ticks", DEFAULT_CACHE_TTL_TICKS));
+
+        // Load adaptive limits
+        this.adaptiveEnabled = config.getBoolean("adaptive-limits.enabled", true);
+        double low = config.getDouble("adaptive-limits.mspt-low", DEFAULT_ADAPTIVE_MSPT_LOW);
+        double high = config.getDouble("adaptive-limits.mspt-high", DEFAULT_ADAPTIVE_MSPT_HIGH);
+        if (low <= 0 || high <= low) {
+            problems.add("Invalid adaptive-limits mspt-low/mspt-high (" + low + "/" + high + "), using defaults: "
+                + DEFAULT_ADAPTIVE_MSPT_LOW + "/" + DEFAULT_ADAPTIVE_MSPT_HIGH);
+            low = DEFAULT_ADAPTIVE_MSPT_LOW;
+            high = DEFAULT_ADAPTIVE_MSPT_HIGH;
+        }
+        this.adaptiveMsptLow = low;
+        this.adaptiveMsptHigh = high;
+        this.adaptiveMinScale = Math.max(0.05, Math.min(1.0, config.getDouble("adaptive-limits.min-scale", DEFAULT_ADAPTIVE_MIN_SCALE)));
+        this.adaptiveSmoothing = Math.max(0.05, Math.min(1.0, config.getDouble("adaptive-limits.smoothing", DEFAULT_ADAPTIVE_SMOOTHING)));
+        this.breakBudgetPerTick = Math.max(0, config.getInt("adaptive-limits.break-budget-per-tick", DEFAULT_BREAK_BUDGET_PER_TICK));
+
+        // Load ore index
+        this.oreIndexEnabled = config.getBoolean("ore-index.enabled", false);
+        this.oreIndexMaxChunks = Math.max(1, config.getInt("ore-index.max-chunks", DEFAULT_ORE_INDEX_MAX_CHUNKS));
+
+        // Load parallel search
+        this.parallelSearchEnabled = config.getBoolean("parallel-search.enabled", true);
+        this.parallelSearchMinLimit = Math.max(2, config.getInt("parallel-search.min-limit", DEFAULT_PARALLEL_SEARCH_MIN_LIMIT));
+        this.parallelSearchThreads = Math.max(0, config.getInt("parallel-search.threads", 0));
+        this.parallelSearchVerify = config.getBoolean("parallel-search.verify", false);
+
+        // Load undo journal
+        this.undoEnabled = config.getBoolean("undo.enabled", false);
+        this.undoMaxBytes = Math.max(64, config.getInt("undo.max-size-kb", DEFAULT_UNDO_MAX_SIZE_KB)) * 1024L;
+        this.undoBlocksPerTick = Math.max(1, config.getInt("undo.blocks-per-tick", DEFAULT_UNDO_BLOCKS_PER_TICK));
+
+        // Load x-ray alerts
+        this.xrayAlertsEnabled = config.getBoolean("xray-alerts.enabled", true);
+        this.xrayHalfLifeMillis = (long) (Math.max(1.0, config.getDouble("xray-alerts.half-life-minutes", DEFAULT_XRAY_HALF_LIFE_MINUTES)) * 60_000L);
+        this.xrayZThreshold = Math.max(1.0, config.getDouble("xray-alerts.z-threshold", DEFAULT_XRAY_Z_THRESHOLD));
+        this.xrayMinBlocks = Math.max(1, config.getInt("xray-alerts.min-blocks", DEFAULT_XRAY_MIN_BLOCKS));
+        this.xrayCooldownMillis = Math.max(0, config.getInt("xray-alerts.cooldown-minutes", DEFAULT_XRAY_COOLDOWN_MINUTES)) * 60_000L;
+
+        // Load update checker
+        this.updateCheckerEnabled = config.getBoolean("update-checker.enabled", true);
+        this.githubRepo = config.getString("update-checker.repository", "EuphoriaDevelopmentOrg/VeinMiner-PowerNukkitX");
+
+        // Load messages
+        this.inventoryFullMessage = config.getString("messages.inventory-full", "&eInventory full! {count} items were {action}.");
+
+        this.blocks = BlockRegistry.compile(definitions, config, problems);
+
+        // The default tier comes from the global settings
+        VeinTier baseTier = new VeinTier("default", null, maxBlocks, 0, false, durabilityMultiplier);
+        List<VeinTier> loadedTiers = new ArrayList<>();
+        if (config.isSection("tiers")) {
+            ConfigSection section = config.getSection("tiers");
+            for (String name : section.getKeys(false)) {
+                if (!section.isSection(name)) {
+                    continue;
+                }
+                VeinTier tier = VeinTier.fromConfig(name, section.getSection(name), baseTier);
+                if (tier.getPermission() == null) {
+                    // A tier without permission replaces the defaults
+                    baseTier = tier;
+                } else {
+                    loadedTiers.add(tier);
+                }
+            }
+        }
+        this.defaultTier = baseTier;
+        this.tiers = Collections.unmodifiableList(loadedTiers);
+
+        List<String> worlds = config.getStringList("disabled-worlds");
+        this.disabledWorlds = Collections.unmodifiableSet(worlds == null ? new HashSet<>() : new HashSet<>(worlds));
+
+        Map<String, WorldOverride> loadedOverrides = new HashMap<>();
+        if (config.isSection("world-overrides")) {
+            ConfigSection section = config.getSection("world-overrides");
+            for (String world : section.getKeys(false)) {
+                if (section.isSection(world)) {
+                    loadedOverrides.put(world, new WorldOverride(section.getSection(world)));
+                }
+            }
+        }
+        this.worldOverrides = Collections.unmodifiableMap(loadedOverrides);
+
+        Map<Integer, List<String>> rewards = new HashMap<>();
+        if (config.isSection("statistics.milestones.rewards")) {
+            ConfigSection section = config.getSection("statistics.milestones.rewards");
+            for (String key : section.getKeys(false)) {
+                try {
+                    List<String> commands = section.getStringList(key);
+                    if (commands != null && !commands.isEmpty()) {
+                        rewards.put(Integer.parseInt(key), Collections.unmodifiableList(new ArrayList<>(commands)));
+                    }
+                } catch (NumberFormatException e) {
+                    problems.add("Ignoring milestone reward for non-numeric milestone: " + key);
+                }
+            }
+        }
+        this.milestoneRewards = Collections.unmodifiableMap(rewards);
+
+        this.warnings = Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * Build a settings snapshot from a parsed config
+     * Safe to call off the main thread, the configs must not be modified while building
+     * @param config The parsed config.yml
+     * @param definitions The parsed blocks.yml
+     * @return Immutable settings
+     */
+    public static VeinMinerSettings fromConfig(Config config, Config definitions) {
+        return new VeinMinerSettings(config, definitions);
+    }
+
+    /**
+     * @param blockId Block identifier
+     * @return true if the block type is vein-mineable
+     */
+    public boolean isVeinBlock(String blockId) {
+        return blocks.get(blockId) != null;
+    }
+
+    /**
+     * @param blockId Block identifier
+     * @return The block's type, or null if the block is not vein-mineable
+     */
+    public BlockType getBlockType(String blockId) {
+        return blocks.get(blockId);
+    }
+
+    public BlockRegistry getBlockRegistry() {
+        return blocks;
+    }
+
+    /**
+     * Check if the tool is appropriate for mining this block
+     * @param blockId The block identifier
+     * @param tool The tool item
+     * @return true if tool is valid for this block
+     */
+    public boolean isProperTool(String blockId, Item tool) {
+        if (tool == null || blockId == null) {
+            return false;
+        }
+        BlockType type = blocks.get(blockId);
+        return type != null && type.getTool().matches(tool);
+    }
+
+    public int getVeinBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Time the per-break lookups, for /vm benchmark (safe off the main thread, the snapshot is immutable)
+     * Ids alternate between vein blocks and common non-vein blocks, most broken blocks are misses.
+     * @param tool Tool checked by isProperTool
+     * @param iterations Lookups to time per method
+     * @return Nanoseconds per {@link BlockRegistry#get} and per {@link #isProperTool} call
+     */
+    double[] benchmarkLookups(Item tool, int iterations) {
+        List<String> ids = new ArrayList<>();
+        for (String id : blocks.getBlockIds()) {
+            if (ids.size() == 16) {
+                break;
+            }
+            ids.add(id);
+        }
+        String[] misses = {"minecraft:stone", "minecraft:dirt", "minecraft:grass_block", "minecraft:deepslate",
+            "minecraft:netherrack", "minecraft:sand", "minecraft:gravel", "minecraft:air"};
+        List<String> mixed = new ArrayList<>();
+        for (int i = 0; i < Math.max(ids.size(), misses.length); i++) {
+            if (i < ids.size()) {
+                mixed.add(ids.get(i));
+            }
+            mixed.add(misses[i % misses.length]);
+        }
+        String[] lookups = mixed.toArray(new String[0]);
+
+        long sink = 0;
+        // Warm-up so both paths are compiled before timing
+        for (int i = 0; i < Math.min(iterations, 20000); i++) {
+            String id = lookups[i % lookups.length];
+            sink += blocks.get(id) != null ? 1 : 0;
+            sink += isProperTool(id, tool) ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += blocks.get(lookups[i % lookups.length]) != null ? 1 : 0;
+        }
+        long getNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += isProperTool(lookups[i % lookups.length], tool) ? 1 : 0;
+        }
+        long toolNanos = System.nanoTime() - start;
+        // Keep the results alive so the loops are not optimised away
+        benchmarkSink = sink;
+        return new double[]{(double) getNanos / iterations, (double) toolNanos / iterations};
+    }
+
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    public int getSearchMultiplier() {
+        return searchMultiplier;
+    }
+
+    public VeinSearch.Mode getSearchMode() {
+        return searchMode;
+    }
+
+    public double getDurabilityMultiplier() {
+        return durabilityMultiplier;
+    }
+
+    /**
+     * @return false if vein mining never damages tools
+     */
+    public boolean isDurabilityEnabled() {
+        return durabilityEnabled;
+    }
+
+    public boolean isSneakRequired() {
+        return sneakRequired;
+    }
+
+    public int getPermissionRefreshTicks() {
+        return permissionRefreshTicks;
+    }
+
+    /**
+     * @return Tier used when the player has none of the tier permissions
+     */
+    public VeinTier getDefaultTier() {
+        return defaultTier;
+    }
+
+    /**
+     * @return Permission tiers in config order
+     */
+    public List<VeinTier> getTiers() {
+        return tiers;
+    }
+
+    public boolean isWorldDisabled(String world) {
+        return disabledWorlds.contains(world);
+    }
+
+    public int getDisabledWorldCount() {
+        return disabledWorlds.size();
+    }
+
+    WorldOverride getWorldOverride(String world) {
+        return worldOverrides.get(world);
+    }
+
+    public int getWorldOverrideCount() {
+        return worldOverrides.size();
+    }
+
+    public boolean isAutoPickupEnabled() {
+        return autoPickupEnabled;
+    }
+
+    /**
+     * @return true if items that don't fit are dropped, false if they are deleted
+     */
+    public boolean isDropWhenFull() {
+        return dropWhenFull;
+    }
+
+    public String getFullInventoryAction() {
+        return fullInventoryAction;
+    }
+
+    GroundDrops.Location getGroundDropLocation() {
+        return groundDropLocation;
+    }
+
+    public int getGroundDropDelayTicks() {
+        return groundDropDelayTicks;
+    }
+
+    public boolean isLoggingEnabled() {
+        return loggingEnabled;
+    }
+
+    public boolean isVeinMiningLogged() {
+        return loggingEnabled && logVeinMining;
+    }
+
+    public boolean isConfigLoggingEnabled() {
+        return loggingEnabled && logConfigLoading;
+    }
+
+    /**
+     * @return When a break event is fired for every vein block (protection plugins without a provider)
+     */
+    public ProtectionService.BreakEvents getProtectionBreakEvents() {
+        return protectionBreakEvents;
+    }
+
+    public boolean isParticlesEnabled() {
+        return particlesEnabled;
+    }
+
+    public boolean isSoundsEnabled() {
+        return soundsEnabled;
+    }
+
+    public EffectsBatcher.ParticleMode getParticleMode() {
+        return particleMode;
+    }
+
+    public int getMaxParticlesPerVein() {
+        return maxParticlesPerVein;
+    }
+
+    public int getMaxParticlesPerTick() {
+        return maxParticlesPerTick;
+    }
+
+    public boolean isPreviewEnabled() {
+        return previewEnabled;
+    }
+
+    public int getPreviewIntervalTicks() {
+        return previewIntervalTicks;
+    }
+
+    public int getPreviewMaxParticles() {
+        return previewMaxParticles;
+    }
+
+    public int getPreviewRange() {
+        return previewRange;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public int getCacheTtlTicks() {
+        return cacheTtlTicks;
+    }
+
+    public boolean isAdaptiveEnabled() {
+        return adaptiveEnabled;
+    }
+
+    public double getAdaptiveMsptLow() {
+        return adaptiveMsptLow;
+    }
+
+    public double getAdaptiveMsptHigh() {
+        return adaptiveMsptHigh;
+    }
+
+    public double getAdaptiveMinScale() {
+        return adaptiveMinScale;
+    }
+
+    public double getAdaptiveSmoothing() {
+        return adaptiveSmoothing;
+    }
+
+    /**
+     * @return Blocks VeinMiner may break per tick for all players together before load scaling, 0 for unlimited
+     */
+    public int getBreakBudgetPerTick() {
+        return breakBudgetPerTick;
+    }
+
+    public boolean isOreIndexEnabled() {
+        return oreIndexEnabled;
+    }
+
+    public int getOreIndexMaxChunks() {
+        return oreIndexMaxChunks;
+    }
+
+    public boolean isParallelSearchEnabled() {
+        return parallelSearchEnabled;
+    }
+
+    /**
+     * @return Smallest search limit that uses the parallel breadth-first search
+     */
+    public int getParallelSearchMinLimit() {
+        return parallelSearchMinLimit;
+    }
+
+    /**
+     * @return Parallel search worker threads, 0 for one less than the available processors
+     */
+    public int getParallelSearchThreads() {
+        return parallelSearchThreads;
+    }
+
+    /**
+     * @return true if every parallel search is repeated on one core and compared (debugging only)
+     */
+    public boolean isParallelSearchVerify() {
+        return parallelSearchVerify;
+    }
+
+    public boolean isUndoEnabled() {
+        return undoEnabled;
+    }
+
+    /**
+     * @return Hard cap of the undo journal file in bytes
+     */
+    public long getUndoMaxBytes() {
+        return undoMaxBytes;
+    }
+
+    /**
+     * @return Blocks /vm undo places back per tick
+     */
+    public int getUndoBlocksPerTick() {
+        return undoBlocksPerTick;
+    }
+
+    public boolean isXrayAlertsEnabled() {
+        return xrayAlertsEnabled;
+    }
+
+    /**
+     * @return Time after which a player's past veins weigh half as much in their ore rate
+     */
+    public long getXrayHalfLifeMillis() {
+        return xrayHalfLifeMillis;
+    }
+
+    /**
+     * @return Standard deviations above the server's rare ore rate that raise an alert
+     */
+    public double getXrayZThreshold() {
+        return xrayZThreshold;
+    }
+
+    /**
+     * @return Recent (decayed) watched blocks needed before a player is judged
+     */
+    public int getXrayMinBlocks() {
+        return xrayMinBlocks;
+    }
+
+    /**
+     * @return Minimum time between two alerts about the same player
+     */
+    public long getXrayCooldownMillis() {
+        return xrayCooldownMillis;
+    }
+
+    public boolean isUpdateCheckerEnabled() {
+        return updateCheckerEnabled;
+    }
+
+    public String getGithubRepo() {
+        return githubRepo;
+    }
+
+    public String getInventoryFullMessage() {
+        return inventoryFullMessage;
+    }
+
+    /**
+     * @param milestone Milestone threshold
+     * @return Console commands to run, empty if none are configured
+     */
+    public List<String> getMilestoneRewards(int milestone) {
+        return milestoneRewards.getOrDefault(milestone, Collections.emptyList());
+    }
+
+    /**
+     * @return Problems found while building, to be logged by the caller
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+}
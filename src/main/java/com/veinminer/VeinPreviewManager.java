@@ -0,0 +1,162 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.Listener;
+import cn.nukkit.event.player.PlayerQuitEvent;
+import cn.nukkit.event.player.PlayerToggleSneakEvent;
+import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.particle.DustParticle;
+import cn.nukkit.math.Vector3;
+import cn.nukkit.scheduler.TaskHandler;
+import cn.nukkit.utils.TextFormat;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shows sneaking players an outline of the vein they are looking at
+ * The computed vein goes into the shared {@link VeinCache} so the following break can reuse it
+ */
+public class VeinPreviewManager implements Listener {
+
+    // Logging tag
+    private static final String LOG_TAG = "[VeinMiner] ";
+
+    private final VeinMinerPlugin plugin;
+    private final Set<UUID> sneakingPlayers;
+
+    private TaskHandler task;
+
+    public VeinPreviewManager(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+        this.sneakingPlayers = ConcurrentHashMap.newKeySet();
+
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        restart();
+    }
+
+    /**
+     * (Re)start the preview task with the current settings
+     * Called after a new settings snapshot has been applied
+     */
+    public void restart() {
+        VeinMinerSettings settings = plugin.getSettings();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        if (settings.isPreviewEnabled()) {
+            int intervalTicks = settings.getPreviewIntervalTicks();
+            task = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, this::tick, intervalTicks, intervalTicks);
+        }
+    }
+
+    /**
+     * Track sneak state so the preview task only visits sneaking players
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onToggleSneak(PlayerToggleSneakEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        if (event.isSneaking()) {
+            sneakingPlayers.add(uuid);
+        } else {
+            sneakingPlayers.remove(uuid);
+        }
+    }
+
+    /**
+     * Clean up player data when they disconnect to prevent memory leaks
+     */
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        sneakingPlayers.remove(uuid);
+    }
+
+    /**
+     * Refresh previews for every sneaking player
+     */
+    private void tick() {
+        // Previews are effects, they pause while the server is under load
+        if (sneakingPlayers.isEmpty() || !plugin.getLoadController().isEffectsEnabled()) {
+            return;
+        }
+
+        Iterator<UUID> iterator = sneakingPlayers.iterator();
+        while (iterator.hasNext()) {
+            UUID uuid = iterator.next();
+            Player player = plugin.getServer().getPlayer(uuid).orElse(null);
+            if (player == null || !player.isOnline()) {
+                iterator.remove();
+                continue;
+            }
+
+            try {
+                updatePreview(player);
+            } catch (Exception e) {
+                plugin.getLogger().warning(LOG_TAG + "Error updating vein preview for " + player.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compute (or reuse) the vein the player is looking at and draw its outline
+     * @param player The sneaking player
+     */
+    private void updatePreview(Player player) {
+        if (!player.isSneaking() || !plugin.canVeinMine(player)
+                || !plugin.getPreferenceStore().isPreviewEnabled(player.getUniqueId())) {
+            return;
+        }
+
+        VeinMinerSettings settings = plugin.getSettings();
+        Block target = player.getTargetBlock(settings.getPreviewRange());
+        if (target == null || !settings.isVeinBlock(target.getId())) {
+            return;
+        }
+
+        Item tool = player.getInventory().getItemInHand();
+        if (!settings.isProperTool(target.getId(), tool)) {
+            return;
+        }
+
+        // PERFORMANCE: Only searches when the target changed or the cached result went stale
+        PlayerProfile profile = plugin.getProfileManager().getProfile(player);
+        VeinResult vein = plugin.getVein(target, profile.getSearchLimit(), profile.getSearchMode(), profile.isAsyncEligible());
+        if (vein != null && vein.size() > 1) {
+            showOutline(player, vein, settings.getPreviewMaxParticles());
+            // The search looks further than one break mines, tell both numbers apart
+            int mineable = Math.min(vein.size(), plugin.getLoadController().scaleVeinSize(profile.getMaxBlocks()));
+            player.sendTip(TextFormat.GOLD + "Vein Preview: " + TextFormat.WHITE + mineable + " blocks" +
+                (mineable < vein.size() ? TextFormat.GRAY + " (vein: " + vein.size() + (vein.isTruncated() ? "+" : "") + ")" : ""));
+        }
+    }
+
+    /**
+     * Send outline particles to the previewing player only
+     * Large veins are sampled evenly so the particle count stays bounded
+     * @param player The player to show the outline to
+     * @param vein The vein to outline
+     * @param maxParticles Maximum particles to send
+     */
+    private void showOutline(Player player, VeinResult vein, int maxParticles) {
+        Level level = vein.getLevel();
+        int step = Math.max(1, (vein.size() + maxParticles - 1) / maxParticles);
+        for (int i = 0; i < vein.size(); i += step) {
+            long pos = vein.getPosition(i);
+            Vector3 center = new Vector3(PackedPos.x(pos) + 0.5, PackedPos.y(pos) + 0.5, PackedPos.z(pos) + 0.5);
+            level.addParticle(new DustParticle(center, 255, 215, 0), player);
+        }
+    }
+
+    public boolean isEnabled() {
+        return plugin.getSettings().isPreviewEnabled();
+    }
+}
@@ -0,0 +1,147 @@
+package com.veinminer;
+
+import cn.nukkit.level.Level;
+import com.veinminer.api.VeinPositions;
+
+import java.util.Arrays;
+
+/**
+ * Immutable result of a vein search
+ * Positions are stored packed (see {@link PackedPos}) in search order, origin first
+ */
+public final class VeinResult {
+
+    private final Level level;
+    private final BlockType type;
+    private final long[] positions;
+    private final boolean truncated;
+    private final boolean unloadedBorder;
+
+    public VeinResult(Level level, BlockType type, long[] positions, boolean truncated) {
+        this(level, type, positions, truncated, false);
+    }
+
+    public VeinResult(Level level, BlockType type, long[] positions, boolean truncated, boolean unloadedBorder) {
+        this.level = level;
+        this.type = type;
+        this.positions = positions;
+        this.truncated = truncated;
+        this.unloadedBorder = unloadedBorder;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Block type of the vein (grouped ids share one type)
+     */
+    public BlockType getType() {
+        return type;
+    }
+
+    public long getOrigin() {
+        return positions[0];
+    }
+
+    public long getPosition(int index) {
+        return positions[index];
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * @return true if the search stopped at its limit and the vein may continue beyond these positions
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return true if the search reached an unloaded chunk, which was treated as the edge of the vein
+     */
+    public boolean isUnloadedBorder() {
+        return unloadedBorder;
+    }
+
+    /**
+     * Index of a position in this vein
+     * @param packed Packed position
+     * @return Index, or -1 if the position is not part of the vein
+     */
+    public int indexOf(long packed) {
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] == packed) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Create a copy of this vein with the given member moved to the front
+     * @param index Index of the new origin
+     * @return Vein rooted at the given member
+     */
+    public VeinResult rootedAt(int index) {
+        if (index == 0) {
+            return this;
+        }
+        long[] copy = positions.clone();
+        copy[index] = copy[0];
+        copy[0] = positions[index];
+        return new VeinResult(level, type, copy, truncated, unloadedBorder);
+    }
+
+    /**
+     * Create a copy of this vein ordered by distance to the origin (origin stays first)
+     * Used when a cached vein is re-rooted at a different block
+     * @return Vein ordered nearest first
+     */
+    public VeinResult orderedByDistance() {
+        long origin = positions[0];
+        int ox = PackedPos.x(origin);
+        int oy = PackedPos.y(origin);
+        int oz = PackedPos.z(origin);
+
+        // Sort keys hold the distance in the high bits and the original index in the low bits
+        long[] keys = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            long pos = positions[i];
+            int distance = VeinSearch.distanceSquared(PackedPos.x(pos) - ox, PackedPos.y(pos) - oy, PackedPos.z(pos) - oz);
+            keys[i] = ((long) distance << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        long[] ordered = new long[positions.length];
+        for (int i = 0; i < keys.length; i++) {
+            ordered[i] = positions[(int) keys[i]];
+        }
+        return new VeinResult(level, type, ordered, truncated, unloadedBorder);
+    }
+
+    /**
+     * Create a vein containing the positions from the given index onwards
+     * @param fromIndex First position to keep
+     * @return Remaining vein, or null if nothing remains
+     */
+    public VeinResult remainder(int fromIndex) {
+        if (fromIndex >= positions.length) {
+            return null;
+        }
+        long[] rest = new long[positions.length - fromIndex];
+        System.arraycopy(positions, fromIndex, rest, 0, rest.length);
+        return new VeinResult(level, type, rest, truncated, unloadedBorder);
+    }
+
+    /**
+     * Read-only view of the first positions, shares this vein's array
+     * @param count Number of positions from the front
+     * @return Position list for API events
+     */
+    public VeinPositions toPositions(int count) {
+        return new VeinPositions(positions, count);
+    }
+}
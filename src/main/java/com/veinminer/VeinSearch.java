@@ -0,0 +1,358 @@
+package com.veinminer;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.level.Level;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Arrays;
+
+/**
+ * Vein search algorithms
+ * Both searches collect connected blocks of the start block's type and stop once the limit is filled
+ * Types and neighbour connectivity come from the compiled {@link BlockRegistry}
+ * Only loaded chunks inside the world's height are read: an unloaded chunk is treated as the edge of the vein
+ * and the result is marked, since reading it would load or generate the chunk on the main thread.
+ */
+public final class VeinSearch {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Neighbour probe results
+    private static final int NO_MATCH = 0;
+    private static final int MATCH = 1;
+    private static final int UNLOADED = 2;
+
+    /**
+     * Order in which vein blocks are collected
+     */
+    public enum Mode {
+        /** Breadth-first from the origin */
+        BREADTH_FIRST,
+        /** Closest blocks to the origin first (bounded priority frontier) */
+        NEAREST;
+
+        /**
+         * Parse a mode from config
+         * @param name Config value
+         * @param fallback Mode to use for unknown values
+         * @return Parsed mode
+         */
+        public static Mode fromConfig(String name, Mode fallback) {
+            if (name == null) {
+                return fallback;
+            }
+            switch (name.toLowerCase().replace('_', '-')) {
+                case "nearest":
+                    return NEAREST;
+                case "breadth-first":
+                case "bfs":
+                    return BREADTH_FIRST;
+                default:
+                    return fallback;
+            }
+        }
+    }
+
+    private VeinSearch() {
+    }
+
+    /**
+     * Find connected blocks of the same type
+     * @param startBlock The initial block to start from
+     * @param registry Block registry resolving types
+     * @param limit Maximum number of blocks to collect
+     * @param mode Collection order
+     * @return Vein rooted at the start block, or null for an invalid or non vein-mineable start block
+     */
+    public static VeinResult find(Block startBlock, BlockRegistry registry, int limit, Mode mode) {
+        return find(startBlock, registry, null, limit, mode);
+    }
+
+    /**
+     * Find connected blocks of the same type, answering neighbour checks from the ore index where possible
+     * @param startBlock The initial block to start from
+     * @param registry Block registry resolving types
+     * @param index Ore index, or null to read every neighbour from the world
+     * @param limit Maximum number of blocks to collect
+     * @param mode Collection order
+     * @return Vein rooted at the start block, or null for an invalid or non vein-mineable start block
+     */
+    public static VeinResult find(Block startBlock, BlockRegistry registry, OreIndex index, int limit, Mode mode) {
+        if (startBlock == null || startBlock.getLevel() == null) {
+            return null;
+        }
+        BlockType type = registry.get(startBlock.getId());
+        if (type == null) {
+            return null;
+        }
+        return mode == Mode.NEAREST ? nearest(startBlock, registry, index, type, limit) : breadthFirst(startBlock, registry, index, type, limit);
+    }
+
+    /**
+     * Find all connected blocks of the same type using BFS (Breadth-First Search)
+     * Positions are tracked as packed longs, so no position strings or Block objects are kept
+     * @param startBlock The initial block to start from
+     * @param registry Block registry resolving neighbour types
+     * @param index Ore index, or null
+     * @param type Type of the start block
+     * @param limit Maximum number of blocks to collect
+     * @return Vein rooted at the start block
+     */
+    public static VeinResult breadthFirst(Block startBlock, BlockRegistry registry, OreIndex index, BlockType type, int limit) {
+        Level level = startBlock.getLevel();
+        int[] offsets = type.getConnectivity().offsets();
+
+        int minY = level.getMinHeight();
+        int maxY = level.getMaxHeight();
+
+        long[] found = new long[Math.min(limit, INITIAL_CAPACITY)];
+        int size = 0;
+        boolean truncated = false;
+        boolean unloadedBorder = false;
+        // First found position whose neighbours were not probed, -1 while every position was expanded
+        int unexpanded = -1;
+
+        // Positions are marked visited when first probed so each neighbor is read at most once
+        LongOpenHashSet visited = new LongOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        long origin = PackedPos.pack(startBlock.getFloorX(), startBlock.getFloorY(), startBlock.getFloorZ());
+        visited.add(origin);
+        queue.enqueue(origin);
+
+        while (!queue.isEmpty()) {
+            // SECURITY: Hard limit check to prevent infinite loops
+            if (size >= limit) {
+                // Queued members are left out
+                truncated = true;
+                break;
+            }
+
+            long current = queue.dequeueLong();
+            if (size == found.length) {
+                found = Arrays.copyOf(found, Math.min(limit, found.length * 2));
+            }
+            found[size++] = current;
+
+            // PERFORMANCE: Once the queue can fill the limit there is no need to probe further
+            if (size + queue.size() >= limit) {
+                if (unexpanded < 0) {
+                    unexpanded = size - 1;
+                }
+                continue;
+            }
+
+            int cx = PackedPos.x(current);
+            int cy = PackedPos.y(current);
+            int cz = PackedPos.z(current);
+
+            // Check the neighbours allowed by the type's connectivity (up to the full 3x3x3 cube)
+            for (int i = 0; i < offsets.length; i += 3) {
+                int nx = cx + offsets[i];
+                int ny = cy + offsets[i + 1];
+                int nz = cz + offsets[i + 2];
+                long neighbor = PackedPos.pack(nx, ny, nz);
+                if (visited.add(neighbor)) {
+                    int probe = probe(level, nx, ny, nz, minY, maxY, index, registry, type);
+                    if (probe == MATCH) {
+                        queue.enqueue(neighbor);
+                    } else if (probe == UNLOADED) {
+                        unloadedBorder = true;
+                    }
+                }
+            }
+        }
+
+        // A vein of exactly the limit is only truncated if a position left unexpanded has one more member
+        if (!truncated && unexpanded >= 0) {
+            truncated = continuesBeyond(level, found, unexpanded, size, offsets, visited, minY, maxY, index, registry, type);
+        }
+
+        return new VeinResult(level, type, Arrays.copyOf(found, size), truncated, unloadedBorder);
+    }
+
+    /**
+     * Check whether any of the given positions has a matching neighbour that was never visited
+     */
+    private static boolean continuesBeyond(Level level, long[] found, int from, int to, int[] offsets, LongOpenHashSet visited,
+                                           int minY, int maxY, OreIndex index, BlockRegistry registry, BlockType type) {
+        for (int p = from; p < to; p++) {
+            int cx = PackedPos.x(found[p]);
+            int cy = PackedPos.y(found[p]);
+            int cz = PackedPos.z(found[p]);
+            for (int i = 0; i < offsets.length; i += 3) {
+                int nx = cx + offsets[i];
+                int ny = cy + offsets[i + 1];
+                int nz = cz + offsets[i + 2];
+                if (visited.add(PackedPos.pack(nx, ny, nz)) && probe(level, nx, ny, nz, minY, maxY, index, registry, type) == MATCH) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the connected blocks closest to the origin using a priority frontier
+     * The frontier is ordered by squared distance to the origin, so the search cost is
+     * proportional to the limit rather than the size of the whole vein
+     * @param startBlock The initial block to start from
+     * @param registry Block registry resolving neighbour types
+     * @param index Ore index, or null
+     * @param type Type of the start block
+     * @param limit Maximum number of blocks to collect
+     * @return Vein rooted at the start block, ordered by distance
+     */
+    public static VeinResult nearest(Block startBlock, BlockRegistry registry, OreIndex index, BlockType type, int limit) {
+        Level level = startBlock.getLevel();
+        int[] offsets = type.getConnectivity().offsets();
+        int ox = startBlock.getFloorX();
+        int oy = startBlock.getFloorY();
+        int oz = startBlock.getFloorZ();
+        int minY = level.getMinHeight();
+        int maxY = level.getMaxHeight();
+
+        long[] found = new long[Math.min(limit, INITIAL_CAPACITY)];
+        int size = 0;
+        boolean unloadedBorder = false;
+
+        LongOpenHashSet visited = new LongOpenHashSet();
+        FrontierHeap frontier = new FrontierHeap(Math.min(limit, INITIAL_CAPACITY));
+        long origin = PackedPos.pack(ox, oy, oz);
+        visited.add(origin);
+        frontier.push(0, origin);
+
+        while (!frontier.isEmpty() && size < limit) {
+            long current = frontier.pop();
+            if (size == found.length) {
+                found = Arrays.copyOf(found, Math.min(limit, found.length * 2));
+            }
+            found[size++] = current;
+
+            // PERFORMANCE: Budget filled, stop before probing the neighbors of the last block
+            if (size >= limit) {
+                break;
+            }
+
+            int cx = PackedPos.x(current);
+            int cy = PackedPos.y(current);
+            int cz = PackedPos.z(current);
+
+            for (int i = 0; i < offsets.length; i += 3) {
+                int nx = cx + offsets[i];
+                int ny = cy + offsets[i + 1];
+                int nz = cz + offsets[i + 2];
+                long neighbor = PackedPos.pack(nx, ny, nz);
+                if (visited.add(neighbor)) {
+                    int probe = probe(level, nx, ny, nz, minY, maxY, index, registry, type);
+                    if (probe == MATCH) {
+                        frontier.push(distanceSquared(nx - ox, ny - oy, nz - oz), neighbor);
+                    } else if (probe == UNLOADED) {
+                        unloadedBorder = true;
+                    }
+                }
+            }
+        }
+
+        // Budget filled with unexplored frontier left means the vein continues
+        boolean truncated = size >= limit && !frontier.isEmpty();
+        return new VeinResult(level, type, Arrays.copyOf(found, size), truncated, unloadedBorder);
+    }
+
+    /**
+     * Squared distance clamped to int (veins never span far enough to overflow in practice)
+     */
+    static int distanceSquared(int dx, int dy, int dz) {
+        long d = (long) dx * dx + (long) dy * dy + (long) dz * dz;
+        return (int) Math.min(Integer.MAX_VALUE, d);
+    }
+
+    /**
+     * Check whether a neighbour continues the vein without loading its chunk
+     * @return MATCH, NO_MATCH or UNLOADED
+     */
+    private static int probe(Level level, int x, int y, int z, int minY, int maxY, OreIndex index, BlockRegistry registry, BlockType type) {
+        if (y < minY || y > maxY) {
+            return NO_MATCH;
+        }
+        // PERFORMANCE: An indexed chunk answers with a bit test instead of a block read
+        if (index != null) {
+            int indexed = index.probe(level, x, y, z, type);
+            if (indexed != OreIndex.NOT_INDEXED) {
+                return indexed == OreIndex.PRESENT ? MATCH : NO_MATCH;
+            }
+        }
+        // PERFORMANCE: getBlock on an unloaded chunk loads (or generates) it synchronously
+        if (!level.isChunkLoaded(x >> 4, z >> 4)) {
+            return UNLOADED;
+        }
+        try {
+            Block neighbor = level.getBlock(x, y, z);
+            // Grouped ids resolve to the same type instance
+            return neighbor != null && registry.get(neighbor.getId()) == type ? MATCH : NO_MATCH;
+        } catch (Exception e) {
+            // Skip invalid blocks
+            return NO_MATCH;
+        }
+    }
+
+    /**
+     * Binary min-heap of packed positions keyed by distance, backed by primitive arrays
+     */
+    private static final class FrontierHeap {
+        private int[] keys;
+        private long[] values;
+        private int size;
+
+        FrontierHeap(int capacity) {
+            this.keys = new int[Math.max(16, capacity)];
+            this.values = new long[keys.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int key, long value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        long pop() {
+            long result = values[0];
+            int lastKey = keys[--size];
+            long lastValue = values[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (lastKey <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = lastKey;
+            values[i] = lastValue;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.veinminer;
+
+import cn.nukkit.utils.ConfigSection;
+
+/**
+ * Vein mining limits granted by a permission node
+ * Loaded from the "tiers" config section
+ */
+public final class VeinTier {
+
+    private final String name;
+    private final String permission;
+    private final int maxBlocks;
+    private final int blocksPerSecond;
+    private final boolean async;
+    private final double durabilityMultiplier;
+
+    public VeinTier(String name, String permission, int maxBlocks, int blocksPerSecond, boolean async, double durabilityMultiplier) {
+        this.name = name;
+        this.permission = permission;
+        this.maxBlocks = maxBlocks;
+        this.blocksPerSecond = blocksPerSecond;
+        this.async = async;
+        this.durabilityMultiplier = durabilityMultiplier;
+    }
+
+    /**
+     * Parse a tier from config, using the given tier for missing values
+     * @param name Tier name
+     * @param section Tier config section
+     * @param base Tier providing default values
+     * @return Parsed tier
+     */
+    public static VeinTier fromConfig(String name, ConfigSection section, VeinTier base) {
+        String permission = section.getString("permission", "");
+        int maxBlocks = section.getInt("max-blocks", base.maxBlocks);
+        int blocksPerSecond = section.getInt("blocks-per-second", base.blocksPerSecond);
+        boolean async = section.getBoolean("async", base.async);
+        double durabilityMultiplier = section.getDouble("durability-multiplier", base.durabilityMultiplier);
+
+        return new VeinTier(name,
+            permission.isEmpty() ? null : permission,
+            maxBlocks >= 1 ? maxBlocks : base.maxBlocks,
+            Math.max(0, blocksPerSecond),
+            async,
+            durabilityMultiplier >= 0 ? durabilityMultiplier : base.durabilityMultiplier);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Permission node granting this tier, or null for the default tier
+     */
+    public String getPermission() {
+        return permission;
+    }
+
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    /**
+     * @return Sustained vein mining rate limit, 0 for unlimited
+     */
+    public int getBlocksPerSecond() {
+        return blocksPerSecond;
+    }
+
+    /**
+     * @return true if large veins of this tier may use the parallel search (see parallel-search in config.yml)
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    public double getDurabilityMultiplier() {
+        return durabilityMultiplier;
+    }
+}
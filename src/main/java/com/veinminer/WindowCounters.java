@@ -0,0 +1,173 @@
+package com.veinminer;
+
+import com.veinminer.api.StatsWindow;
+
+/**
+ * Blocks mined in the last hour, day and week, kept in fixed-size ring buffers
+ * The hour ring has one bucket per minute, the week ring one per hour (the day is its newest 24 buckets).
+ * Every bucket remembers which minute or hour it counts: a bucket left over from an earlier lap is reset
+ * when it is reused and ignored when read, so the windows roll forward without any scanning.
+ * The rings are only allocated once something is counted, players idle for a week cost nothing.
+ */
+public final class WindowCounters {
+
+    private static final int MINUTES = 60;
+    private static final int HOURS = 7 * 24;
+    private static final int HOURS_PER_DAY = 24;
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+
+    // Bucket stamps are minutes / hours since the epoch, 0 is never a live bucket
+    private int[] minuteStamps;
+    private int[] minuteCounts;
+    private int[] hourStamps;
+    private int[] hourCounts;
+
+    /**
+     * Count blocks at the given time
+     * @param count Blocks mined
+     * @param nowMillis Current time in milliseconds
+     */
+    public synchronized void add(int count, long nowMillis) {
+        if (minuteStamps == null) {
+            allocate();
+        }
+        int minute = (int) (nowMillis / MINUTE_MILLIS);
+        int m = minute % MINUTES;
+        if (minuteStamps[m] != minute) {
+            minuteStamps[m] = minute;
+            minuteCounts[m] = 0;
+        }
+        minuteCounts[m] += count;
+
+        int hour = (int) (nowMillis / HOUR_MILLIS);
+        int h = hour % HOURS;
+        if (hourStamps[h] != hour) {
+            hourStamps[h] = hour;
+            hourCounts[h] = 0;
+        }
+        hourCounts[h] += count;
+    }
+
+    private void allocate() {
+        minuteStamps = new int[MINUTES];
+        minuteCounts = new int[MINUTES];
+        hourStamps = new int[HOURS];
+        hourCounts = new int[HOURS];
+    }
+
+    /**
+     * @param window The window
+     * @param nowMillis Current time in milliseconds
+     * @return Blocks mined within the window
+     */
+    public synchronized long get(StatsWindow window, long nowMillis) {
+        if (minuteStamps == null) {
+            return 0;
+        }
+        if (window == StatsWindow.HOUR) {
+            return sum(minuteStamps, minuteCounts, (int) (nowMillis / MINUTE_MILLIS), MINUTES);
+        }
+        return sum(hourStamps, hourCounts, (int) (nowMillis / HOUR_MILLIS), window == StatsWindow.DAY ? HOURS_PER_DAY : HOURS);
+    }
+
+    private static long sum(int[] stamps, int[] counts, int now, int span) {
+        long total = 0;
+        for (int i = 0; i < stamps.length; i++) {
+            if (stamps[i] > now - span && stamps[i] <= now) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Encode the live minute buckets for storage
+     * @param nowMillis Current time in milliseconds
+     * @return "stamp:count" pairs oldest first, stamps after the first as deltas; empty if none
+     */
+    public synchronized String encodeMinutes(long nowMillis) {
+        return minuteStamps == null ? "" : encode(minuteStamps, minuteCounts, (int) (nowMillis / MINUTE_MILLIS), MINUTES);
+    }
+
+    /**
+     * Encode the live hour buckets for storage
+     * @param nowMillis Current time in milliseconds
+     * @return Same format as {@link #encodeMinutes(long)}
+     */
+    public synchronized String encodeHours(long nowMillis) {
+        return hourStamps == null ? "" : encode(hourStamps, hourCounts, (int) (nowMillis / HOUR_MILLIS), HOURS);
+    }
+
+    private static String encode(int[] stamps, int[] counts, int now, int span) {
+        StringBuilder sb = new StringBuilder();
+        int previous = 0;
+        // Oldest first: walk the ring starting after the current bucket
+        for (int i = 1; i <= stamps.length; i++) {
+            int index = (now + i) % stamps.length;
+            int stamp = stamps[index];
+            if (stamp <= now - span || stamp > now || counts[index] == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(stamp - previous).append(':').append(counts[index]);
+            previous = stamp;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Restore buckets written by the encode methods, dropping those that have expired since
+     * @param minutes Encoded minute buckets (may be null)
+     * @param hours Encoded hour buckets (may be null)
+     * @param nowMillis Current time in milliseconds
+     */
+    public synchronized void decode(String minutes, String hours, long nowMillis) {
+        int minute = (int) (nowMillis / MINUTE_MILLIS);
+        int hour = (int) (nowMillis / HOUR_MILLIS);
+        if (!hasLive(minutes, minute, MINUTES) && !hasLive(hours, hour, HOURS)) {
+            return;
+        }
+        if (minuteStamps == null) {
+            allocate();
+        }
+        decode(minutes, minuteStamps, minuteCounts, minute, MINUTES);
+        decode(hours, hourStamps, hourCounts, hour, HOURS);
+    }
+
+    private static boolean hasLive(String encoded, int now, int span) {
+        if (encoded == null || encoded.isEmpty()) {
+            return false;
+        }
+        // The newest bucket is last, if it expired all did
+        int stamp = 0;
+        for (String pair : encoded.split(" ")) {
+            int colon = pair.indexOf(':');
+            if (colon > 0) {
+                stamp += Integer.parseInt(pair.substring(0, colon));
+            }
+        }
+        return stamp > now - span;
+    }
+
+    private static void decode(String encoded, int[] stamps, int[] counts, int now, int span) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        int stamp = 0;
+        for (String pair : encoded.split(" ")) {
+            int colon = pair.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            stamp += Integer.parseInt(pair.substring(0, colon));
+            if (stamp > now - span && stamp <= now) {
+                int index = stamp % stamps.length;
+                stamps[index] = stamp;
+                counts[index] = Integer.parseInt(pair.substring(colon + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.veinminer;
+
+import cn.nukkit.utils.ConfigSection;
+
+/**
+ * Per-world replacement values, null where the tier value is kept
+ * Loaded from the "world-overrides" config section
+ */
+final class WorldOverride {
+
+    final Integer maxBlocks;
+    final Integer blocksPerSecond;
+    final Boolean async;
+    final Double durabilityMultiplier;
+    final Boolean enabled;
+
+    WorldOverride(ConfigSection section) {
+        int max = section.getInt("max-blocks", 0);
+        this.maxBlocks = section.exists("max-blocks") && max >= 1 ? max : null;
+        this.blocksPerSecond = section.exists("blocks-per-second") ? Math.max(0, section.getInt("blocks-per-second", 0)) : null;
+        this.async = section.exists("async") ? section.getBoolean("async", false) : null;
+        double multiplier = section.getDouble("durability-multiplier", -1);
+        this.durabilityMultiplier = section.exists("durability-multiplier") && multiplier >= 0 ? multiplier : null;
+        this.enabled = section.exists("enabled") ? section.getBoolean("enabled", true) : null;
+    }
+}
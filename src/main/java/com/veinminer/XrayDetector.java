@@ -0,0 +1,125 @@
+package com.veinminer;
+
+import cn.nukkit.Player;
+import cn.nukkit.utils.TextFormat;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flags players whose recent share of rare ores is far above the server's, a typical sign of x-ray
+ * Every vein of a watched category ({@link BlockType.Rarity}) updates exponentially decayed sums of rare blocks,
+ * total blocks and veins for the player and for the whole server. The player's rate is compared with the server's
+ * rate as a z-score over the player's recent veins: blocks of one vein are not independent finds, so veins are the
+ * sample size. Each player costs a fixed handful of fields, no history is kept, and players are forgotten once
+ * their rate has decayed away.
+ */
+final class XrayDetector {
+
+    private static final String LOG_TAG = "[VeinMiner] ";
+
+    // The server baseline forgets this many times slower than a player's rate
+    private static final int BASELINE_HALF_LIFE_FACTOR = 24;
+
+    // A player's rate is dropped once it decayed below this many blocks
+    private static final double FORGET_BLOCKS = 0.5;
+
+    private final VeinMinerPlugin plugin;
+    private final Map<UUID, Rate> rates = new ConcurrentHashMap<>();
+    private final Rate server = new Rate();
+    // Guarded by server
+    private long prunedAt;
+
+    XrayDetector(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Decayed sums of one player or of the server
+     */
+    private static final class Rate {
+        double rare;
+        double total;
+        double veins;
+        long updatedAt;
+        long alertedAt;
+
+        void add(int blocks, boolean isRare, long now, long halfLifeMillis) {
+            if (updatedAt != 0) {
+                double decay = decay(now, halfLifeMillis);
+                rare *= decay;
+                total *= decay;
+                veins *= decay;
+            }
+            updatedAt = now;
+            if (isRare) {
+                rare += blocks;
+            }
+            total += blocks;
+            veins += 1;
+        }
+
+        double decay(long now, long halfLifeMillis) {
+            return Math.pow(0.5, (double) (now - updatedAt) / halfLifeMillis);
+        }
+    }
+
+    /**
+     * Account a mined vein and alert staff if the player became an outlier (main thread)
+     * @param player The player who mined the vein
+     * @param blockCount Number of blocks mined
+     * @param type Block type of the vein
+     */
+    void record(Player player, int blockCount, BlockType type) {
+        VeinMinerSettings settings = plugin.getSettings();
+        if (!settings.isXrayAlertsEnabled() || type.getRarity() == BlockType.Rarity.NONE || blockCount <= 0) {
+            return;
+        }
+        boolean isRare = type.getRarity() == BlockType.Rarity.RARE;
+        long now = System.currentTimeMillis();
+        long halfLife = settings.getXrayHalfLifeMillis();
+
+        double z;
+        double playerShare;
+        double serverShare;
+        double recentBlocks;
+        synchronized (server) {
+            // PERFORMANCE: Once per half-life, forget players whose rate decayed to nothing (players who left)
+            if (now - prunedAt >= halfLife) {
+                prunedAt = now;
+                rates.values().removeIf(r -> r.total * r.decay(now, halfLife) < FORGET_BLOCKS);
+            }
+            Rate rate = rates.computeIfAbsent(player.getUniqueId(), k -> new Rate());
+            server.add(blockCount, isRare, now, halfLife * BASELINE_HALF_LIFE_FACTOR);
+            rate.add(blockCount, isRare, now, halfLife);
+            // Only a rare vein can turn a player into an outlier
+            if (!isRare || rate.total < settings.getXrayMinBlocks()
+                    || (rate.alertedAt != 0 && now - rate.alertedAt < settings.getXrayCooldownMillis())) {
+                return;
+            }
+            serverShare = server.rare / server.total;
+            if (serverShare <= 0 || serverShare >= 1) {
+                return;
+            }
+            playerShare = rate.rare / rate.total;
+            recentBlocks = rate.total;
+            z = (playerShare - serverShare) / Math.sqrt(serverShare * (1 - serverShare) / rate.veins);
+            if (z < settings.getXrayZThreshold()) {
+                return;
+            }
+            rate.alertedAt = now;
+        }
+
+        String details = String.format("%.0f%% of about %.0f recent blocks were rare ores (server %.1f%%, z=%.1f)",
+            playerShare * 100, recentBlocks, serverShare * 100, z);
+        plugin.getLogger().warning(LOG_TAG + "Possible x-ray: " + player.getName() + " - " + details);
+        String message = TextFormat.RED + "[VeinMiner] " + TextFormat.YELLOW + "Possible x-ray: " + TextFormat.WHITE +
+            player.getName() + TextFormat.GRAY + " - " + details;
+        for (Player staff : plugin.getServer().getOnlinePlayers().values()) {
+            if (staff.hasPermission("veinminer.alerts")) {
+                staff.sendMessage(message);
+            }
+        }
+    }
+}
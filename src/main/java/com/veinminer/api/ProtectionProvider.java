@@ -0,0 +1,44 @@
+package com.veinminer.api;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.level.Level;
+
+import java.util.BitSet;
+
+/**
+ * Decides which blocks of a vein a player may break (claims, regions, ...)
+ * Registered with {@link VeinMinerAPI#registerProtectionProvider(ProtectionProvider)}. The broken block itself
+ * already passed the regular BlockBreakEvent, so only the other vein blocks are checked.
+ */
+public interface ProtectionProvider {
+
+    /**
+     * @return Provider name for logs
+     */
+    String getName();
+
+    /**
+     * Check a whole vein at once
+     * @param player The player mining the vein
+     * @param level The vein's world
+     * @param bounds Bounding box of all positions
+     * @param positions Vein positions, the broken block first
+     * @param allowed Allowed bitmask indexed like positions; clear the bits of positions the player may not break
+     * @return true if the vein was checked, false if this provider can't answer bulk queries and
+     *         {@link #canBreak(Player, Block)} should be asked for each block instead
+     */
+    default boolean filter(Player player, Level level, VeinBounds bounds, VeinPositions positions, BitSet allowed) {
+        return false;
+    }
+
+    /**
+     * Check a single block, only called when {@link #filter} returned false
+     * @param player The player mining the vein
+     * @param block The vein block
+     * @return true if the player may break the block
+     */
+    default boolean canBreak(Player player, Block block) {
+        return true;
+    }
+}
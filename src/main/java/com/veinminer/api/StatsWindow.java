@@ -0,0 +1,29 @@
+package com.veinminer.api;
+
+/**
+ * Rolling time window of vein mining statistics
+ */
+public enum StatsWindow {
+    /** The last 60 minutes, minute resolution */
+    HOUR,
+    /** The last 24 hours, hour resolution */
+    DAY,
+    /** The last 7 days, hour resolution */
+    WEEK;
+
+    /**
+     * Parse a window from a command argument
+     * @param name hour, day or week
+     * @return Parsed window, or null for unknown values
+     */
+    public static StatsWindow fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
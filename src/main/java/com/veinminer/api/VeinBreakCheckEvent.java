@@ -0,0 +1,20 @@
+package com.veinminer.api;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.event.block.BlockBreakEvent;
+import cn.nukkit.item.Item;
+
+/**
+ * Break event fired for a vein block only to ask protection plugins without a {@link ProtectionProvider}
+ * The block is not broken by this event, and it is cancelled at MONITOR once protection plugins have decided.
+ * Plugins that pay, log or count block breaks should ignore it: blocks vein mining does break are reported by
+ * {@link VeinMinePostEvent}.
+ * Delivered to every BlockBreakEvent listener, it has no handler list of its own.
+ */
+public class VeinBreakCheckEvent extends BlockBreakEvent {
+
+    public VeinBreakCheckEvent(Player player, Block block, Item tool) {
+        super(player, block, tool, new Item[0], false, false);
+    }
+}
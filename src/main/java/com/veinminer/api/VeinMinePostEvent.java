@@ -0,0 +1,79 @@
+package com.veinminer.api;
+
+import cn.nukkit.Player;
+import cn.nukkit.event.HandlerList;
+import cn.nukkit.event.player.PlayerEvent;
+import cn.nukkit.level.Level;
+import com.veinminer.BlockType;
+
+/**
+ * Called once per vein after its blocks were broken, with the aggregated results
+ */
+public class VeinMinePostEvent extends PlayerEvent {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    public static HandlerList getHandlers() {
+        return handlers;
+    }
+
+    private final Level level;
+    private final BlockType type;
+    private final VeinPositions positions;
+    private final int blocksMined;
+    private final int experience;
+    private final int itemsNotPickedUp;
+    private final boolean toolBroken;
+
+    public VeinMinePostEvent(Player player, Level level, BlockType type, VeinPositions positions,
+                             int blocksMined, int experience, int itemsNotPickedUp, boolean toolBroken) {
+        this.player = player;
+        this.level = level;
+        this.type = type;
+        this.positions = positions;
+        this.blocksMined = blocksMined;
+        this.experience = experience;
+        this.itemsNotPickedUp = itemsNotPickedUp;
+        this.toolBroken = toolBroken;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public BlockType getType() {
+        return type;
+    }
+
+    /**
+     * @return Positions that were processed; blocks changed since the search were skipped (see {@link #getBlocksMined()})
+     */
+    public VeinPositions getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return Number of blocks actually broken
+     */
+    public int getBlocksMined() {
+        return blocksMined;
+    }
+
+    /**
+     * @return Total experience dropped
+     */
+    public int getExperience() {
+        return experience;
+    }
+
+    /**
+     * @return Items that did not fit in the inventory (dropped or deleted)
+     */
+    public int getItemsNotPickedUp() {
+        return itemsNotPickedUp;
+    }
+
+    public boolean isToolBroken() {
+        return toolBroken;
+    }
+}
@@ -0,0 +1,97 @@
+package com.veinminer.api;
+
+import cn.nukkit.Player;
+import cn.nukkit.event.Cancellable;
+import cn.nukkit.event.HandlerList;
+import cn.nukkit.event.player.PlayerEvent;
+import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
+import com.veinminer.BlockType;
+
+/**
+ * Called once per vein after the blocks to mine are resolved and before any of them is broken
+ * Cancelling it falls back to a normal single block break. Listeners may also lower the number of
+ * blocks mined; positions are mined in list order, so a limit keeps the front of the list.
+ */
+public class VeinMinePreEvent extends PlayerEvent implements Cancellable {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    public static HandlerList getHandlers() {
+        return handlers;
+    }
+
+    private final Level level;
+    private final BlockType type;
+    private final VeinPositions positions;
+    private final Item tool;
+    private int limit;
+    private long seed;
+
+    public VeinMinePreEvent(Player player, Level level, BlockType type, VeinPositions positions, Item tool, long seed) {
+        this.player = player;
+        this.level = level;
+        this.type = type;
+        this.positions = positions;
+        this.tool = tool;
+        this.limit = positions.size();
+        this.seed = seed;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Block type of the vein
+     */
+    public BlockType getType() {
+        return type;
+    }
+
+    /**
+     * @return Positions that will be mined, the broken block first
+     */
+    public VeinPositions getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return The tool in hand, must not be modified
+     */
+    public Item getTool() {
+        return tool;
+    }
+
+    /**
+     * @return Number of positions from the front of the list that will be mined
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Mine fewer blocks (the limit can only be lowered)
+     * @param limit New limit, values below 2 cancel vein mining
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, Math.min(this.limit, limit));
+    }
+
+    /**
+     * @return Random seed of the vein (durability, Fortune and the choice among drop samples), logged with the vein
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Replace the random seed, the same seed repeats the vein's durability and Fortune rolls with the same tool
+     * The base drops and experience come from the server's own drop logic, which is not seeded, so drop counts
+     * of blocks like lapis or redstone and ore experience can still differ.
+     * @param seed New seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
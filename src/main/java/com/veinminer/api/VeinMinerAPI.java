@@ -0,0 +1,163 @@
+package com.veinminer.api;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import com.veinminer.BlockType;
+import com.veinminer.PlayerProfile;
+import com.veinminer.StatisticsTracker;
+import com.veinminer.VeinMinerPlugin;
+import com.veinminer.VeinResult;
+
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+/**
+ * Entry point for other plugins
+ * Vein mining itself is observed and influenced through {@link VeinMinePreEvent} and {@link VeinMinePostEvent}.
+ * All methods must be called on the main thread unless stated otherwise.
+ */
+public final class VeinMinerAPI {
+
+    private static volatile VeinMinerAPI instance;
+
+    private final VeinMinerPlugin plugin;
+    private volatile VeinSearchStrategy searchStrategy;
+
+    private VeinMinerAPI(VeinMinerPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @return The API of the enabled VeinMiner plugin
+     * @throws IllegalStateException if VeinMiner is not enabled
+     */
+    public static VeinMinerAPI get() {
+        VeinMinerAPI api = instance;
+        if (api == null) {
+            throw new IllegalStateException("VeinMiner is not enabled");
+        }
+        return api;
+    }
+
+    /**
+     * Publish the API (called by VeinMiner on enable)
+     * @param plugin The plugin
+     * @return The published API
+     */
+    public static VeinMinerAPI enable(VeinMinerPlugin plugin) {
+        instance = new VeinMinerAPI(plugin);
+        return instance;
+    }
+
+    /**
+     * Withdraw the API (called by VeinMiner on disable)
+     */
+    public static void disable() {
+        instance = null;
+    }
+
+    /**
+     * Safe to call from any thread
+     * @param blockId Block identifier
+     * @return The block's vein type, or null if the block is not vein-mineable
+     */
+    public BlockType getBlockType(String blockId) {
+        return plugin.getSettings().getBlockType(blockId);
+    }
+
+    /**
+     * Safe to call from any thread
+     * @param blockId Block identifier
+     * @return true if the block is vein-mineable
+     */
+    public boolean isVeinBlock(String blockId) {
+        return getBlockType(blockId) != null;
+    }
+
+    /**
+     * @param player The player
+     * @return true if the player would vein mine right now (block and tool aside)
+     */
+    public boolean isEligible(Player player) {
+        return plugin.getProfileManager().getProfile(player).isEligible();
+    }
+
+    /**
+     * @param player The player
+     * @return Maximum blocks per vein for the player in their current world
+     */
+    public int getMaxBlocks(Player player) {
+        return plugin.getProfileManager().getProfile(player).getMaxBlocks();
+    }
+
+    /**
+     * Resolve the vein containing a block with the player's limit and search mode, without breaking anything
+     * @param player The player whose profile applies
+     * @param origin The block to start from
+     * @return Positions with the origin first, empty if the block is not vein-mineable
+     */
+    public VeinPositions findVein(Player player, Block origin) {
+        PlayerProfile profile = plugin.getProfileManager().getProfile(player);
+        VeinResult vein = plugin.findVein(origin, plugin.getSettings(), profile.getMaxBlocks(), profile.getSearchMode(),
+            profile.isAsyncEligible());
+        return vein == null ? new VeinPositions(new long[0], 0) : vein.toPositions(vein.size());
+    }
+
+    /**
+     * Register a protection provider checking the blocks of every vein
+     * @param provider The provider
+     */
+    public void registerProtectionProvider(ProtectionProvider provider) {
+        plugin.getProtectionService().register(provider);
+    }
+
+    public void unregisterProtectionProvider(ProtectionProvider provider) {
+        plugin.getProtectionService().unregister(provider);
+    }
+
+    /**
+     * Safe to call from any thread
+     * @param uuid Player UUID
+     * @param window The window
+     * @return Blocks the player vein mined within the window
+     */
+    public long getBlocksMined(UUID uuid, StatsWindow window) {
+        StatisticsTracker.PlayerStats stats = plugin.getStatsTracker().getStats(uuid);
+        return stats == null ? 0 : stats.getWindows().get(window, System.currentTimeMillis());
+    }
+
+    /**
+     * Safe to call from any thread
+     * @param window The window
+     * @return Blocks vein mined by all players within the window
+     */
+    public long getServerBlocksMined(StatsWindow window) {
+        return plugin.getStatsTracker().getServerBlocks(window);
+    }
+
+    /**
+     * Safe to call from any thread
+     * @param window The window
+     * @param limit Maximum number of players
+     * @return Player UUID to blocks vein mined within the window, highest first
+     */
+    public LinkedHashMap<UUID, Long> getTopPlayers(StatsWindow window, int limit) {
+        return plugin.getStatsTracker().getTopPlayers(window, limit);
+    }
+
+    /**
+     * Replace the built-in vein search
+     * @param strategy The strategy, or null to restore the built-in search
+     */
+    public void setSearchStrategy(VeinSearchStrategy strategy) {
+        this.searchStrategy = strategy;
+        plugin.clearVeinCache();
+    }
+
+    /**
+     * @return The registered strategy, or null if the built-in search is used
+     */
+    public VeinSearchStrategy getSearchStrategy() {
+        return searchStrategy;
+    }
+}
@@ -0,0 +1,70 @@
+package com.veinminer.api;
+
+import com.veinminer.PackedPos;
+
+/**
+ * Read-only list of vein block positions
+ * Backed by the vein's packed position array (see {@link PackedPos}) without copying, so handing a vein
+ * to listeners costs one small object regardless of its size
+ */
+public final class VeinPositions {
+
+    private final long[] packed;
+    private final int size;
+
+    /**
+     * @param packed Packed positions, not copied and must not be modified afterwards
+     * @param size Number of positions from the front of the array that belong to this list
+     */
+    public VeinPositions(long[] packed, int size) {
+        if (size < 0 || size > packed.length) {
+            throw new IllegalArgumentException("Invalid size " + size + " for " + packed.length + " positions");
+        }
+        this.packed = packed;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Position index, 0 is the broken block
+     * @return Packed position
+     */
+    public long getPacked(int index) {
+        checkIndex(index);
+        return packed[index];
+    }
+
+    public int getX(int index) {
+        return PackedPos.x(getPacked(index));
+    }
+
+    public int getY(int index) {
+        return PackedPos.y(getPacked(index));
+    }
+
+    public int getZ(int index) {
+        return PackedPos.z(getPacked(index));
+    }
+
+    /**
+     * @return A copy of the packed positions
+     */
+    public long[] toArray() {
+        long[] copy = new long[size];
+        System.arraycopy(packed, 0, copy, 0, size);
+        return copy;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size + " positions");
+        }
+    }
+}
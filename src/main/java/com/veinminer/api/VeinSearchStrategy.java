@@ -0,0 +1,26 @@
+package com.veinminer.api;
+
+import cn.nukkit.block.Block;
+import com.veinminer.BlockType;
+
+/**
+ * Replaces the built-in vein search
+ * Registered with {@link VeinMinerAPI#setSearchStrategy(VeinSearchStrategy)} and called on the main thread
+ */
+public interface VeinSearchStrategy {
+
+    /**
+     * @return Strategy name shown in /vm status
+     */
+    String getName();
+
+    /**
+     * Collect the blocks of the vein containing the origin
+     * Use {@link VeinMinerAPI#getBlockType(String)} to check whether a neighbour belongs to the same type
+     * @param origin The broken (or previewed) block
+     * @param type Type of the origin
+     * @param limit Maximum number of positions to return
+     * @return Packed positions with the origin first (at most limit), or null to use the built-in search
+     */
+    VeinPositions search(Block origin, BlockType type, int limit);
+}